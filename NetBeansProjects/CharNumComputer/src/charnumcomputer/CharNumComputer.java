@@ -65,7 +65,7 @@ public class CharNumComputer {
   public static void searchFor12Manifold() {   
     Manifold m1 = new CP(6);
     Manifold m2 = new Product(Arrays.asList(new CP(2), new CP(4)));
-    Manifold m3 = new Product(Arrays.asList(new CP(2), new CP(2), new CP(2)));  
+    Manifold m3 = new Power(new CP(2), 3);
     
     System.out.println(
               "**********************************\n"
@@ -225,11 +225,8 @@ public class CharNumComputer {
             + "and such that the corresponding manifold has\n"
             + "appropriate Stiefel-Whitney numbers:\n");
     
-    Map<Integer, Set<Partition>> occ = pc.getOccurrences(12);
-    Set<Partition> atLeast8 = new HashSet<>();
-    for (int i = 8; i < 13; i++) {
-      atLeast8.addAll(occ.get(i));
-    }
+    Set<Partition> atLeast8 = new HashSet<>(
+            pc.getPartitions(12, pc.containingAny(12, 8, 12)));
     
     for (int a = -5; a < 6; a++) {
       for (int b = -5; b < 6; b++) {
@@ -286,7 +283,7 @@ public class CharNumComputer {
     
     Manifold cp4    = new CP(4);
     CharNumbers cnCP4    = cp4.getCharNumbers(pc);
-    Manifold cp2cp2 = new Product(Arrays.asList(new CP(2), new CP(2)));
+    Manifold cp2cp2 = new Power(new CP(2), 2);
     CharNumbers cnCP2CP2 = cp2cp2.getCharNumbers(pc);
     
     List<Partition> pontList = pc.getPartitions(2);
@@ -373,7 +370,7 @@ public class CharNumComputer {
     Manifold hp3       = new HP(3);
     Manifold cp6       = new CP(6);
     Manifold cp2cp4    = new Product(Arrays.asList(new CP(2), new CP(4)));
-    Manifold cp2cp2cp2 = new Product(Arrays.asList(new CP(2), new CP(2), new CP(2)));
+    Manifold cp2cp2cp2 = new Power(new CP(2), 3);
     
     System.out.println(
             "\nNext we play a similar game for " + hp3.toString() + ",\n"
@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lib;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Binomials computes binomial coefficients "n choose k" exactly,
+ * and modulo primes without computing them at all.
+ * 
+ * Exact values come from one shared Pascal triangle, kept as half rows 
+ * since row n is symmetric.  The rows up to LONG_ROWS fit in a long
+ * and are built when the class loads.  BigInteger rows are added
+ * as they are asked for, up to MAX_ROWS, and larger n use the
+ * multiplicative formula instead.
+ * 
+ * As in PartitionComputer, published rows are never modified and are 
+ * read through a volatile field without locking.  Extending the rows 
+ * is synchronized, and replaces the published array.
+ * 
+ * Residues use Lucas' theorem: "n choose k" mod p is the product of 
+ * the "n_i choose k_i" mod p over the base p digits n_i and k_i.  
+ * For p = 2 this says "n choose k" is odd iff (n & k) == k.
+ * 
+ * @author William Gollinger
+ */
+public final class Binomials {
+  
+  /**
+   * The rows of Pascal's triangle whose entries all fit in a long.
+   */
+  public static final int LONG_ROWS = 67;
+  /**
+   * The rows of Pascal's triangle which are kept, as BigIntegers.
+   */
+  static final int MAX_ROWS = 1 << 10;
+  
+  private static final long[][] longRows = new long[LONG_ROWS][];             // longRows[n][k] is "n choose k" for k <= n / 2
+  private static volatile BigInteger[][] bigRows = new BigInteger[0][];        // bigRows[n][k] is "n choose k" for k <= n / 2
+  static {
+    for (int n = 0; n < LONG_ROWS; n++) {
+      longRows[n] = new long[n / 2 + 1];
+      longRows[n][0] = 1;
+      for (int k = 1; k <= n / 2; k++) 
+        longRows[n][k] = longRows[n - 1][k - 1] + longRows[n - 1][Math.min(k, n - 1 - k)];
+    }
+  }
+  
+  private Binomials() {
+  }
+  
+  /**
+   * Returns "n choose k", which is 0 unless 0 <= k <= n.
+   * @param n
+   * @param k
+   * @return 
+   */
+  public static BigInteger binomial(int n, int k) {
+    if (k < 0 || k > n) 
+      return BigInteger.ZERO;
+    k = Math.min(k, n - k);
+    if (n < LONG_ROWS) 
+      return BigInteger.valueOf(longRows[n][k]);
+    if (n < MAX_ROWS) 
+      return bigRows(n)[n][k];
+    BigInteger b = BigInteger.ONE;
+    for (int i = 1; i <= k; i++)                                             // after step i, b is "n - k + i choose i", so the division is exact
+      b = b.multiply(BigInteger.valueOf(n - k + i)).divide(BigInteger.valueOf(i));
+    return b;
+  }
+  /**
+   * Returns row n of Pascal's triangle, whose k-th entry is "n choose k",
+   * in a fresh array.  Beyond the kept rows it costs n steps, 
+   * rather than the n^2 of asking for each entry.
+   * @param n
+   * @return 
+   */
+  public static BigInteger[] row(int n) {
+    if (n < 0) 
+      throw new IllegalArgumentException("Row must be non-negative.");
+    BigInteger[] row = new BigInteger[n + 1];
+    if (n < MAX_ROWS) {
+      BigInteger[][] rows = (n < LONG_ROWS) ? null : bigRows(n);
+      for (int k = 0; k <= n / 2; k++) 
+        row[k] = row[n - k] = entry(rows, n, k);
+      return row;
+    }
+    row[0] = row[n] = BigInteger.ONE;
+    for (int k = 1; k <= n / 2; k++) 
+      row[k] = row[n - k] = row[k - 1].multiply(BigInteger.valueOf(n - k + 1))
+                                      .divide(BigInteger.valueOf(k));
+    return row;
+  }
+  /**
+   * Returns "n choose k" as a long, 
+   * throwing ArithmeticException if it does not fit.
+   * @param n
+   * @param k
+   * @return 
+   */
+  public static long longBinomial(int n, int k) {
+    if (k < 0 || k > n) 
+      return 0;
+    if (n < LONG_ROWS) 
+      return longRows[n][Math.min(k, n - k)];
+    return binomial(n, k).longValueExact();
+  }
+  /**
+   * Returns "n choose k" mod 2, which is 1 iff k's bits are among n's.
+   * @param n
+   * @param k
+   * @return 
+   */
+  public static int binomialMod2(int n, int k) {
+    if (k < 0 || k > n) 
+      return 0;
+    return ((n & k) == k) ? 1 : 0;
+  }
+  /**
+   * Returns "n choose k" mod p, for a prime p, by Lucas' theorem.
+   * @param n
+   * @param k
+   * @param p
+   * @return 
+   */
+  public static long binomialMod(int n, int k, long p) {
+    if (k < 0 || k > n) 
+      return 0;
+    if (p == 2) 
+      return binomialMod2(n, k);
+    long result = 1;
+    for (long m = n, j = k; m > 0 && result != 0; m /= p, j /= p) 
+      result = result * smallBinomialMod((int) (m % p), (int) (j % p), p) % p;
+    return result;
+  }
+  
+  /**
+   * Returns "n choose k" mod p, for a prime p > n.
+   * @param n
+   * @param k
+   * @param p
+   * @return 
+   */
+  private static long smallBinomialMod(int n, int k, long p) {
+    if (k > n) 
+      return 0;
+    k = Math.min(k, n - k);
+    if (n < LONG_ROWS) 
+      return longRows[n][k] % p;
+    BigInteger bp = BigInteger.valueOf(p);
+    BigInteger num = BigInteger.ONE;
+    BigInteger den = BigInteger.ONE;
+    for (int i = 1; i <= k; i++) {
+      num = num.multiply(BigInteger.valueOf(n - k + i)).mod(bp);
+      den = den.multiply(BigInteger.valueOf(i)).mod(bp);
+    }
+    return num.multiply(den.modInverse(bp)).mod(bp).longValue();             // p > n, so p does not divide k!
+  }
+  /**
+   * Returns the BigInteger rows, extended to include row n if needed.
+   * Assumes LONG_ROWS <= n < MAX_ROWS.
+   * @param n
+   * @return 
+   */
+  private static BigInteger[][] bigRows(int n) {
+    BigInteger[][] rows = bigRows;
+    if (n < rows.length) 
+      return rows;
+    synchronized (Binomials.class) {
+      rows = bigRows;
+      if (n < rows.length) 
+        return rows;
+      int from = Math.max(rows.length, LONG_ROWS);
+      int to = Math.min(MAX_ROWS, Math.max(n + 1, 2 * rows.length));
+      BigInteger[][] extended = Arrays.copyOf(rows, to);
+      for (int m = from; m < to; m++) {
+        BigInteger[] row = new BigInteger[m / 2 + 1];
+        row[0] = BigInteger.ONE;
+        for (int k = 1; k <= m / 2; k++) 
+          row[k] = entry(extended, m - 1, k - 1).add(entry(extended, m - 1, k));
+        extended[m] = row;
+      }
+      bigRows = extended;
+      return extended;
+    }
+  }
+  /**
+   * Returns "m choose k" for 0 <= k <= m, reading row m of rows,
+   * or of longRows if m is below LONG_ROWS.
+   * @param rows
+   * @param m
+   * @param k
+   * @return 
+   */
+  private static BigInteger entry(BigInteger[][] rows, int m, int k) {
+    k = Math.min(k, m - k);
+    return (m < LONG_ROWS) ? BigInteger.valueOf(longRows[m][k]) : rows[m][k];
+  }
+  
+}
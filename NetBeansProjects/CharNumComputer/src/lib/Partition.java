@@ -29,21 +29,31 @@ import java.util.*;
  * A partition of n is a list of positive integers in ascending order
  * whose sum is n.
  * 
- * A Partition is an immutable object with a private final list of Integers, 
- * and variables noting the sum and the largest element.  
+ * A Partition is an immutable object with a private final encoding 
+ * of its numbers, and variables noting the sum and the largest element.  
  * It has methods for reading these attributes, as well as for
  * amalgamating Partitions to create new ones.
  * 
+ * The numbers are packed into a byte array, one byte each when they are 
+ * all below 256 and four bytes each otherwise, so a Partition costs 
+ * little more than its length.  The accessors size, get, multiplicity 
+ * and iterator read the encoding directly without copying it.
+ * 
  * A Partition memoizes its hashcode at construction for more efficient Map lookups.
  * 
+ * Partitions are ordered lexicographically by their (ascending) number lists,
+ * so partitions sharing a prefix are adjacent when sorted.
+ * 
  * @author William Gollinger
  */
-public class Partition {
+public class Partition implements Comparable<Partition> {
   
-  private final List<Integer> numbers;
-  private final int           sum;
-  private final int           max;
-  private final int           hashCode;
+  private static final int SMALL = 256;                                      // numbers below SMALL are packed one per byte
+  
+  private final byte[] numbers;
+  private final int    width;                                                // the number of bytes used by each number
+  private final int    sum;
+  private final int    hashCode;
   
   
   /*
@@ -56,13 +66,7 @@ public class Partition {
    * @param numbers 
    */
   public Partition(List<Integer> numbers) {
-    this.numbers = new ArrayList<>(numbers);
-    Collections.sort(this.numbers);
-    if (!this.numbers.isEmpty() && this.numbers.get(0) <= 0)
-      throw new IllegalArgumentException();
-    hashCode = this.numbers.hashCode();                                      // this.numbers is now fixed, so we can memoize its hashCode to save look-up time in hash tables
-    sum = numbers.isEmpty() ? 0 : this.numbers.stream().reduce((a, b) -> a + b).get();
-    max = numbers.isEmpty() ? 0 : this.numbers.get(this.numbers.size() - 1);
+    this(sorted(numbers));
   }
   /**
    * Constructs a Partition whose numbers are from the given array.
@@ -76,7 +80,56 @@ public class Partition {
    * Constructs the empty partition.
    */
   public Partition() {
-    this(new ArrayList<>());
+    this(new int[0]);
+  }
+  /**
+   * Constructs a Partition from an array in ascending order.
+   * Throws an IllegalArgumentException if there is a non-positive element.
+   * @param sorted 
+   */
+  private Partition(int[] sorted) {
+    this(sorted, sorted.length);
+  }
+  /**
+   * Constructs a Partition from the first length elements of an array,
+   * which are in ascending order.
+   * Throws an IllegalArgumentException if there is a non-positive element.
+   * @param sorted 
+   * @param length
+   */
+  Partition(int[] sorted, int length) {
+    if (length > 0 && sorted[0] <= 0)
+      throw new IllegalArgumentException();
+    int max = (length == 0) ? 0 : sorted[length - 1];
+    width   = (max < SMALL) ? 1 : 4;
+    numbers = new byte[width * length];
+    int s = 0;
+    int h = 1;
+    for (int i = 0; i < length; i++) {
+      if (width == 1) {
+        numbers[i] = (byte) sorted[i];
+      } else {
+        for (int b = 0; b < 4; b++) 
+          numbers[4 * i + b] = (byte) (sorted[i] >>> (24 - 8 * b));
+      }
+      s += sorted[i];
+      h = 31 * h + sorted[i];                                                // agrees with the hashCode of the number list
+    }
+    sum      = s;
+    hashCode = h;
+  }
+  /**
+   * Returns the elements of numbers as a sorted array.
+   * @param numbers
+   * @return 
+   */
+  private static int[] sorted(List<Integer> numbers) {
+    int[] sorted = new int[numbers.size()];
+    int i = 0;
+    for (Integer k : numbers) 
+      sorted[i++] = k;
+    Arrays.sort(sorted);
+    return sorted;
   }
   
   
@@ -86,16 +139,41 @@ public class Partition {
   
   @Override
   public String toString() {
-    return numbers.toString();
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size(); i++) {
+      if (i > 0) 
+        sb.append(", ");
+      sb.append(get(i));
+    }
+    return sb.append("]").toString();
   }
   @Override
   public boolean equals(Object o) {
-    return (o instanceof Partition && ((Partition)o).numbers.equals(numbers));
+    if (!(o instanceof Partition)) 
+      return false;
+    Partition q = (Partition)o;
+    return hashCode == q.hashCode && width == q.width && Arrays.equals(numbers, q.numbers);
   }
   @Override
   public int hashCode() {
     return hashCode;
   }
+  /**
+   * Compares the number lists lexicographically, 
+   * with a proper prefix coming first.
+   * @param o
+   * @return 
+   */
+  @Override
+  public int compareTo(Partition o) {
+    int n = Math.min(size(), o.size());
+    for (int i = 0; i < n; i++) {
+      int c = Integer.compare(get(i), o.get(i));
+      if (c != 0) 
+        return c;
+    }
+    return Integer.compare(size(), o.size());
+  }
   
   
   /*
@@ -107,7 +185,69 @@ public class Partition {
    * @return 
    */
   public List<Integer> getNumbers() {
-    return new ArrayList<>(numbers);
+    List<Integer> list = new ArrayList<>(size());
+    for (int i = 0; i < size(); i++) 
+      list.add(get(i));
+    return list;
+  }
+  /**
+   * Returns the number of elements of the partition.
+   * @return 
+   */
+  public int size() {
+    return numbers.length / width;
+  }
+  /**
+   * Returns the i-th smallest element of the partition.
+   * Throws IndexOutOfBoundsException if i is not in [0, size()).
+   * @param i
+   * @return 
+   */
+  public int get(int i) {
+    if (i < 0 || i >= size())
+      throw new IndexOutOfBoundsException();
+    if (width == 1) 
+      return numbers[i] & 0xFF;
+    int k = 0;
+    for (int b = 0; b < 4; b++) 
+      k = (k << 8) | (numbers[4 * i + b] & 0xFF);
+    return k;
+  }
+  /**
+   * Returns the number of times k appears in the partition.
+   * @param k
+   * @return 
+   */
+  public int multiplicity(int k) {
+    int count = 0;
+    for (int i = 0; i < size(); i++) {
+      int ki = get(i);
+      if (ki > k)                                                            // the numbers are ascending, so there are no more
+        break;
+      if (ki == k) 
+        count++;
+    }
+    return count;
+  }
+  /**
+   * Returns an iterator over the elements of the partition, 
+   * in ascending order.
+   * @return 
+   */
+  public PrimitiveIterator.OfInt iterator() {
+    return new PrimitiveIterator.OfInt() {
+      private int i = 0;
+      @Override
+      public boolean hasNext() {
+        return i < size();
+      }
+      @Override
+      public int nextInt() {
+        if (!hasNext()) 
+          throw new NoSuchElementException();
+        return get(i++);
+      }
+    };
   }
   /**
    * Returns the sum of the partition.
@@ -121,7 +261,7 @@ public class Partition {
    * @return 
    */
   public int max() {
-    return max;
+    return (size() == 0) ? 0 : get(size() - 1);
   }
   
   
@@ -137,42 +277,38 @@ public class Partition {
    * @return 
    */
   static Partition merge(Partition p, Partition q) {
-    // This merge method is Theta(n) for n = p.size() + q.size(), because
-    // the Partition constructor is O(n) if input is already sorted
-    // (otherwise the worst case is n^2), and
-    // shuffling together two sorted lists is O(n).
+    // Shuffling together two sorted lists is Theta(n) for n = p.size() + q.size().
     if (p == null) return q;
     if (q == null) return p;
-    return new Partition(listMerge(p.getNumbers(), q.getNumbers()));
-  }
-  /**
-   * Assumes parameters are sorted, and returns their sorted union.
-   * @param p
-   * @param q
-   * @return 
-   */
-  private static List<Integer> listMerge(List<Integer> p, List<Integer> q) {
-    List<Integer> merged = new ArrayList<>();
+    int[] merged = new int[p.size() + q.size()];
     int i = 0;
     int j = 0;
-    while (i + j < p.size() + q.size()) {
-      if (i == p.size()) {
-        merged.addAll(q.subList(j, q.size()));
-        return merged;
-      }
-      if (j == q.size()) {
-        merged.addAll(p.subList(i, p.size()));
-        return merged;
-      }
-      if (p.get(i) < q.get(j)) {
-        merged.add(p.get(i));
+    while (i + j < merged.length) {
+      if (j == q.size() || (i < p.size() && p.get(i) < q.get(j))) {
+        merged[i + j] = p.get(i);
         i++;
       } else {
-        merged.add(q.get(j));
+        merged[i + j] = q.get(j);
         j++;
       }
     }
-    return merged;
+    return new Partition(merged);
+  }
+  /**
+   * Produces a partition of p.sum + m * k 
+   * whose elements are those of p together with m copies of k.
+   * Assumes every element of p is less than k, and m >= 0.
+   * @param p
+   * @param k
+   * @param m
+   * @return 
+   */
+  static Partition extend(Partition p, int k, int m) {
+    int[] extended = new int[p.size() + m];
+    for (int i = 0; i < p.size(); i++) 
+      extended[i] = p.get(i);
+    Arrays.fill(extended, p.size(), extended.length, k);
+    return new Partition(extended);
   }
   
   /**
@@ -185,9 +321,9 @@ public class Partition {
    */
   public static Partition scale(Partition p, int s) {
     if (s <= 0) throw new IllegalArgumentException();
-    List<Integer> q = new ArrayList<>();
-    for (int i = 0; i < p.numbers.size(); i++) {
-      q.add(p.numbers.get(i) * s);
+    int[] q = new int[p.size()];
+    for (int i = 0; i < q.length; i++) {
+      q[i] = p.get(i) * s;
     }
     return new Partition(q);
   }
@@ -23,20 +23,52 @@
  */
 package lib;
 
+import java.math.BigInteger;
 import java.util.*;
+import java.util.stream.*;
 
 /**
  * A PatitionComputer produces lists of partitions.  
  * It also produces occurrence tables, mapping an Integer to 
  * a set of partitions that contain it.
+ * Occurrences are stored as BitSets over the positions of partitions 
+ * in their list, so queries such as "the partitions of n with a number 
+ * in [a, b]" are unions and intersections of BitSets.
  * There is also functionality for simply computing the number of Partitions,
- * which is much faster than constructing the entire lists.
+ * which is much faster than constructing the entire lists,
+ * and for ranking and unranking partitions in lexicographic order.
+ * 
+ * A PartitionComputer may be shared between threads.
+ * Computed rows are never modified, and are published through 
+ * volatile fields, so once a row exists it is read without locking.
+ * Extending the rows is synchronized, so there is one writer at a time,
+ * and it replaces the published rows rather than modifying them.
  * @author William Gollinger
  */
 public class PartitionComputer {
-  List<List<Partition>> partitions;                                          // partitions.get(n) is the list of Partitions of n
-  List<Map<Integer, Set<Partition>>> occurrences;                            // occurences.get(n).get(i) is the set of Partitions of n containing i 
-  int[][] p;                                                                 // p[n][k] is the number of partitions of n whose maximum element it k
+  private volatile Rows               rows;
+  private volatile List<BigInteger>   counts;                                // counts.get(n) is the number of partitions of n
+  private volatile List<BigInteger[]> tails;                                 // tails.get(s)[m] is the number of partitions of s whose numbers are at least m
+  
+  /**
+   * Rows holds the partition lists and occurrence tables 
+   * of every number up to some bound.  It is never modified once published.
+   */
+  private static final class Rows {
+    private final List<List<Partition>> partitions;                          // partitions.get(n) is the list of Partitions of n
+    private final List<BitSet[]>        occurrences;                         // occurrences.get(n)[i] holds the positions in partitions.get(n) of the Partitions containing i
+    
+    private Rows(
+            List<List<Partition>> partitions, 
+            List<BitSet[]> occurrences) {
+      this.partitions  = partitions;
+      this.occurrences = occurrences;
+    }
+    
+    private int size() {
+      return partitions.size();
+    }
+  }
   
   /**
    * Constructs a PartitionComputer with partition lists 
@@ -44,8 +76,13 @@ public class PartitionComputer {
    * @param n 
    */
   public PartitionComputer(int n) {
-    partitions  = new ArrayList<>();
-    occurrences = new ArrayList<>();
+    List<List<Partition>> partitions = new ArrayList<>();
+    List<BitSet[]> occurrences = new ArrayList<>();
+    partitions.add(Collections.singletonList(new Partition()));              // there is one partition of 0: the empty partition
+    occurrences.add(new BitSet[]{new BitSet()});
+    rows   = new Rows(partitions, occurrences);
+    counts = Collections.singletonList(BigInteger.ONE);
+    tails  = Collections.singletonList(new BigInteger[]{BigInteger.ONE});
     computePartitions(n);
   }
   /**
@@ -68,8 +105,21 @@ public class PartitionComputer {
    */
   public List<Partition> getPartitions(int n) {
     if (n < 0) return new ArrayList<>();
-    if (n >= partitions.size()) computePartitions(n);
-    return new ArrayList<>(partitions.get(n));
+    return new ArrayList<>(rowsUpTo(n).partitions.get(n));
+  }
+  
+  /**
+   * Returns a Stream of the Partitions of n in lexicographic order.
+   * The partitions are generated as the Stream is consumed, 
+   * rather than taken from (or added to) the stored lists, 
+   * so only the ones still in use take up memory.
+   * Returns an empty Stream if n < 0.
+   * @param n
+   * @return 
+   */
+  public Stream<Partition> streamPartitions(int n) {
+    if (n < 0) return Stream.empty();
+    return StreamSupport.stream(new PartitionSpliterator(n), false);
   }
   
   /**
@@ -80,9 +130,76 @@ public class PartitionComputer {
    * @return 
    */
   public Map<Integer, Set<Partition>> getOccurrences(int n) {
-    if (n < 0) return new HashMap<>();
-    if (n >= partitions.size()) computePartitions(n);
-    return new HashMap<>(occurrences.get(n));
+    Map<Integer, Set<Partition>> table = new HashMap<>();
+    if (n < 0) return table;
+    Rows r = rowsUpTo(n);
+    for (int i = 1; i <= n; i++) {
+      table.put(i, new HashSet<>(select(r.partitions.get(n), r.occurrences.get(n)[i])));
+    }
+    return table;
+  }
+  /**
+   * Returns the positions in getPartitions(n) of the Partitions of n
+   * which contain some number in [a, b].
+   * Returns an empty BitSet if n < 0.
+   * @param n
+   * @param a
+   * @param b
+   * @return 
+   */
+  public BitSet containingAny(int n, int a, int b) {
+    BitSet bits = new BitSet();
+    if (n < 0) return bits;
+    BitSet[] occN = rowsUpTo(n).occurrences.get(n);
+    for (int i = Math.max(a, 1); i <= Math.min(b, n); i++) {
+      bits.or(occN[i]);
+    }
+    return bits;
+  }
+  /**
+   * Returns the positions in getPartitions(n) of the Partitions of n
+   * which contain every one of numbers.
+   * Returns an empty BitSet if n < 0.
+   * @param n
+   * @param numbers
+   * @return 
+   */
+  public BitSet containingAll(int n, int... numbers) {
+    BitSet bits = new BitSet();
+    if (n < 0) return bits;
+    Rows r = rowsUpTo(n);
+    BitSet[] occN = r.occurrences.get(n);
+    bits.set(0, r.partitions.get(n).size());
+    for (int i : numbers) {
+      if (i < 1 || i > n) 
+        return new BitSet();
+      bits.and(occN[i]);
+    }
+    return bits;
+  }
+  /**
+   * Returns the Partitions of n at the given positions of getPartitions(n).
+   * Returns an empty list if n < 0.
+   * @param n
+   * @param positions
+   * @return 
+   */
+  public List<Partition> getPartitions(int n, BitSet positions) {
+    if (n < 0) return new ArrayList<>();
+    return select(rowsUpTo(n).partitions.get(n), positions);
+  }
+  /**
+   * Returns the elements of row at the given positions.
+   * @param row
+   * @param positions
+   * @return 
+   */
+  private static List<Partition> select(List<Partition> row, BitSet positions) {
+    List<Partition> selected = new ArrayList<>(positions.cardinality());
+    for (int j = positions.nextSetBit(0); j >= 0 && j < row.size(); j = positions.nextSetBit(j + 1)) {
+      selected.add(row.get(j));
+    }
+    return selected;
   }
   
   
@@ -90,92 +207,256 @@ public class PartitionComputer {
   Computing mehtods.
   */
   
+  /**
+   * Returns published Rows containing the row of n,
+   * computing it first if necessary.
+   * @param n
+   * @return 
+   */
+  private Rows rowsUpTo(int n) {
+    Rows r = rows;
+    return (n < r.size()) ? r : computePartitions(n);
+  }
   /**
    * computePartitions constructs the lists of partitions and the 
-   * occurrence tables of all numbers up to and including max.
+   * occurrence tables of all numbers up to and including max, 
+   * publishes them and returns them.
    * It is memoized in order to save work.
    * @param max 
+   * @return
    */
-  private void computePartitions(int max) {
-    if (partitions.isEmpty()) {
-      partitions.add(new ArrayList<>());
-      partitions.get(0).add(new Partition());                                // there is one partition of 0: the empty partition
-      occurrences.add(new HashMap<>());
-    }
+  private synchronized Rows computePartitions(int max) {
+    Rows r = rows;
+    if (max < r.size()) 
+      return r;                                                              // another thread got here first
+    List<List<Partition>> partitions = new ArrayList<>(r.partitions);
+    List<BitSet[]> occurrences = new ArrayList<>(r.occurrences);
     // Assuming partitions have been computed up to a point, 
     // extend the computation up to the desired level.
     for (int n = partitions.size(); n < max + 1; n++) {
       List<Partition> rowN = new ArrayList<>();
-      Map<Integer, Set<Partition>> occN = new HashMap<>();
+      BitSet[] occN = new BitSet[n + 1];
+      for (int i = 0; i <= n; i++) {
+        occN[i] = new BitSet();
+      }
       // For each k, iterate over the number of times k can appear in a partition.
       for (int k = 1; k < n + 1; k++) {
-        List<Integer> ks = new ArrayList<>();
         for (int i = 1; i * k <= n; i++) {
-          ks.add(k);
-          // Append ks to the partitions of n - (i * k) which only use numbers < k
+          // Append i copies of k to the partitions of n - (i * k) which only use numbers < k
           // The "i == 0" case was handled when computing with k - 1.
           for (Partition part : partitions.get(n-i*k)) {
             // If the last element is at least k then break.
             if (part.max() >= k) {
               break;
             }
-            Partition extention = Partition.merge(part, new Partition(ks));
+            Partition extention = Partition.extend(part, k, i);
+            addOccurrences(occN, extention, rowN.size());
             rowN.add(extention);
-            occN = addOccurrences(occN, extention);
           }
         }
       }
-      partitions.add(rowN);
+      partitions.add(Collections.unmodifiableList(rowN));
       occurrences.add(occN);
     }
+    Rows extended = new Rows(partitions, occurrences);
+    rows = extended;
+    return extended;
   }
   /**
-   * For each unique Integer in part, addOccurrences adds part to
-   * that Integer's value in table.
+   * For each unique Integer i in part, addOccurrences records 
+   * the position of part in table[i].
    * @param table
    * @param part
-   * @return 
+   * @param position
    */
-  private Map<Integer, Set<Partition>> addOccurrences(
-              Map<Integer, Set<Partition>> table, Partition part) {
-    Set<Integer> uniques = new HashSet<>(part.getNumbers());
-    for (Integer i : uniques) {
-      if (table.get(i) == null) {
-        table.put(i, new HashSet<>());
-      }
-      table.get(i).add(part);
+  private void addOccurrences(BitSet[] table, Partition part, int position) {
+    for (int j = 0; j < part.size(); j++) {
+      table[part.get(j)].set(position);                                      // setting a bit twice is harmless
     }
-    return table;
   }
   
   /**
    * Counts the number of partitions without constructing partition lists,
-   * because it is much faster.  In particular it is O(max^3).
+   * because it is much faster.
+   * Throws ArithmeticException if the count does not fit in an int,
+   * which is the case for max > 121; use countPartitions instead.
    * @param max
    * @return 
    */
   public int dynamicCountPartitions(int max) {
-    if (max < 0) {
+    return countPartitions(max).intValueExact();
+  }
+  /**
+   * Returns the number of partitions of n.
+   * Throws IllegalArgumentException if n < 0.
+   * 
+   * The counts are computed with Euler's pentagonal number recurrence
+   *   p(n) = sum over k != 0 of (-1)^(k+1) p(n - k(3k - 1)/2),
+   * in O(n^1.5) additions, and memoized.
+   * @param n
+   * @return 
+   */
+  public BigInteger countPartitions(int n) {
+    if (n < 0) {
       throw new IllegalArgumentException();
     }
-    if (p != null && max < p.length) {
-      return p[max][max];
+    List<BigInteger> c = counts;
+    return (n < c.size()) ? c.get(n) : extendCounts(n).get(n);
+  }
+  /**
+   * Computes and publishes the partition counts up to max.
+   * @param max
+   * @return 
+   */
+  private synchronized List<BigInteger> extendCounts(int max) {
+    if (max < counts.size()) {
+      return counts;                                                         // another thread got here first
     }
-    // partitions of 0
-    p = new int[max+1][max+1];
-    p[0][0] = 1;
-    // the principle with this computation is the same as in computePartitions,
-    // but there are only numbers to keep track of.
-    for (int n = 0; n < max + 1; n++) {
-      for (int k = 1; k < n + 1; k++) {
-        for (int i = 0; i * k <= n; i++) {
-          p[n][k] += p[n-(i*k)][k-1];
-        }
+    List<BigInteger> c = new ArrayList<>(counts);
+    for (int n = c.size(); n <= max; n++) {
+      BigInteger pn = BigInteger.ZERO;
+      for (int k = 1; k * (3 * k - 1) / 2 <= n; k++) {
+        BigInteger term = c.get(n - k * (3 * k - 1) / 2);
+        if (k * (3 * k + 1) / 2 <= n) 
+          term = term.add(c.get(n - k * (3 * k + 1) / 2));
+        pn = (k % 2 == 1) ? pn.add(term) : pn.subtract(term);
       }
-      for (int k = n + 1; k < max + 1; k++) {
-        p[n][k] = p[n][k-1];
+      c.add(pn);
+    }
+    List<BigInteger> extended = Collections.unmodifiableList(c);
+    counts = extended;
+    return extended;
+  }
+  
+  
+  /*
+  Ranking methods.
+  */
+  
+  /**
+   * Returns the rank of part, which is its position among the 
+   * partitions of part.sum() in lexicographic order 
+   * (the order of streamPartitions, not of getPartitions).
+   * @param part
+   * @return 
+   */
+  public BigInteger rank(Partition part) {
+    int n = part.sum();
+    List<BigInteger[]> q = tailsUpTo(n);
+    // Count the partitions which agree with part before position j
+    // and have a smaller number at position j.
+    BigInteger rank = BigInteger.ZERO;
+    int r    = n;
+    int prev = 1;
+    for (int j = 0; j < part.size(); j++) {
+      for (int x = prev; x < part.get(j); x++) {
+        rank = rank.add(startingWith(q, r, x));
+      }
+      prev = part.get(j);
+      r   -= prev;
+    }
+    return rank;
+  }
+  /**
+   * Returns the partition of n with the given rank, 
+   * the inverse of the rank method.
+   * Throws IllegalArgumentException if n < 0 
+   * or rank is not in [0, countPartitions(n)).
+   * @param n
+   * @param rank
+   * @return 
+   */
+  public Partition unrank(int n, BigInteger rank) {
+    if (rank.signum() < 0 || rank.compareTo(countPartitions(n)) >= 0) {
+      throw new IllegalArgumentException("Rank out of range.");
+    }
+    List<BigInteger[]> q = tailsUpTo(n);
+    int[] numbers = new int[n];
+    int size = 0;
+    int r    = n;
+    int x    = 1;
+    while (r > 0) {
+      BigInteger c = startingWith(q, r, x);
+      if (rank.compareTo(c) < 0) {
+        numbers[size++] = x;                                                 // the next number is x, and x is still the least possible one after it
+        r -= x;
+      } else {
+        rank = rank.subtract(c);
+        x++;
+      }
+    }
+    return new Partition(numbers, size);
+  }
+  /**
+   * Returns a Stream of at most count consecutive partitions of n 
+   * in lexicographic order, starting with the one of rank from.
+   * Ranges of ranks can be handed to separate workers this way.
+   * Throws IllegalArgumentException if n < 0, count < 0,
+   * or from is not in [0, countPartitions(n)).
+   * @param n
+   * @param from
+   * @param count
+   * @return 
+   */
+  public Stream<Partition> streamPartitions(int n, BigInteger from, long count) {
+    if (count < 0) {
+      throw new IllegalArgumentException();
+    }
+    return StreamSupport.stream(new PartitionSpliterator(unrank(n, from), count), false);
+  }
+  /**
+   * Returns the number of partitions of r whose least number is x,
+   * which is the number of partitions of r - x with numbers at least x.
+   * @param q
+   * @param r
+   * @param x
+   * @return 
+   */
+  private static BigInteger startingWith(List<BigInteger[]> q, int r, int x) {
+    return atLeast(q, r - x, x);
+  }
+  /**
+   * Returns the number of partitions of s with numbers at least m.
+   * @param q
+   * @param s
+   * @param m
+   * @return 
+   */
+  private static BigInteger atLeast(List<BigInteger[]> q, int s, int m) {
+    if (s == 0) return BigInteger.ONE;
+    if (s < 0 || m > s) return BigInteger.ZERO;
+    return q.get(s)[m];
+  }
+  /**
+   * Returns published tables containing the row of n,
+   * computing it first if necessary.
+   * @param n
+   * @return 
+   */
+  private List<BigInteger[]> tailsUpTo(int n) {
+    List<BigInteger[]> q = tails;
+    return (n < q.size()) ? q : extendTails(n);
+  }
+  /**
+   * Computes and publishes the rows of tails up to max, using
+   *   atLeast(s, m) = atLeast(s, m + 1) + atLeast(s - m, m).
+   * @param max
+   * @return 
+   */
+  private synchronized List<BigInteger[]> extendTails(int max) {
+    if (max < tails.size()) {
+      return tails;                                                          // another thread got here first
+    }
+    List<BigInteger[]> q = new ArrayList<>(tails);
+    for (int s = q.size(); s <= max; s++) {
+      BigInteger[] row = new BigInteger[s + 1];
+      q.add(row);
+      for (int m = s; m >= 1; m--) {
+        row[m] = atLeast(q, s, m + 1).add(atLeast(q, s - m, m));            // the least number is m, or it is greater
       }
     }
-    return p[max][max];    
+    List<BigInteger[]> extended = Collections.unmodifiableList(q);
+    tails = extended;
+    return extended;
   }
-}
+}
\ No newline at end of file
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lib;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A PartitionSpliterator generates the partitions of a number lazily,
+ * in lexicographic (ascending) order, without keeping them in memory.
+ * 
+ * Partitions are generated as ascending compositions 
+ * (following Kelleher's rule_asc, in the family of Zoghbi and Stojmenovic's
+ * algorithms): the next partition is obtained from the last two parts
+ * of the current one, in constant amortized time.
+ * 
+ * A PartitionSpliterator covers the partitions which begin with a fixed 
+ * prefix, followed by a partition of the remainder whose first number 
+ * lies in a range.  Before traversal starts it can be split by peeling off
+ * the partitions with the smallest possible next number, descending into 
+ * that range first when it is the only one available, so parallel 
+ * consumers get pieces which are themselves contiguous in the ordering.
+ * 
+ * A PartitionSpliterator can also cover a run of consecutive partitions
+ * starting from a given one, such as a range of ranks obtained from 
+ * PartitionComputer.unrank; it does not split.
+ * 
+ * @author William Gollinger
+ */
+public class PartitionSpliterator implements Spliterator<Partition> {
+  
+  private int[]   prefix;                                                    // the numbers every partition starts with
+  private int     remainder;                                                 // the sum of the numbers after the prefix
+  private int     lo;                                                        // the least number that may follow the prefix
+  private int     hi;                                                        // the greatest number that may follow the prefix
+  
+  // Traversal state: a[0..k] is the last partition produced,
+  // or a state whose successor is the first partition to produce.
+  private int[]   a;
+  private int     k;
+  private boolean done;
+  private boolean pending;                                                   // true if a[0..k] is a partition which has not been produced yet
+  private long    limit = Long.MAX_VALUE;                                    // how many more partitions may be produced
+  
+  /**
+   * Constructs a PartitionSpliterator over the partitions of n.
+   * Throws IllegalArgumentException if n < 0.
+   * @param n 
+   */
+  public PartitionSpliterator(int n) {
+    this(new int[0], n, 1, n);
+    if (n < 0) 
+      throw new IllegalArgumentException();
+  }
+  /**
+   * Constructs a PartitionSpliterator over at most count consecutive 
+   * partitions of first.sum(), starting with first.
+   * @param first
+   * @param count 
+   */
+  PartitionSpliterator(Partition first, long count) {
+    this(new int[0], first.sum(), 1, first.sum());
+    a = new int[remainder + 2];
+    k = first.size() - 1;
+    for (int i = 0; i < first.size(); i++) 
+      a[i] = first.get(i);
+    pending = true;
+    limit   = count;
+  }
+  /**
+   * Constructs a PartitionSpliterator over the partitions consisting of
+   * prefix followed by a partition of remainder whose first number
+   * is in [lo, hi].
+   * Assumes lo is at least every element of prefix.
+   * @param prefix
+   * @param remainder
+   * @param lo
+   * @param hi 
+   */
+  private PartitionSpliterator(int[] prefix, int remainder, int lo, int hi) {
+    this.prefix    = prefix;
+    this.remainder = remainder;
+    this.lo        = lo;
+    this.hi        = hi;
+  }
+  
+  
+  /*
+  Spliterator methods.
+  */
+  
+  @Override
+  public boolean tryAdvance(Consumer<? super Partition> action) {
+    if (a == null) 
+      start();
+    if (done || limit == 0) 
+      return false;
+    int b = prefix.length;
+    limit--;
+    if (remainder == 0) {
+      done = true;                                                           // the only partition is the prefix itself
+      action.accept(new Partition(a, b));
+      return true;
+    }
+    if (pending) {
+      pending = false;
+    } else {
+      // Replace the last two numbers x - 1, y + 1 by x, ..., x, x + y.
+      int x = a[k - 1] + 1;
+      int y = a[k] - 1;
+      k--;
+      while (x <= y) {
+        a[k] = x;
+        y -= x;
+        k++;
+      }
+      a[k] = x + y;
+      if (a[b] > hi) {
+        done = true;
+        return false;
+      }
+    }
+    if (k == b) 
+      done = true;                                                           // the remainder is a single number, which is the last partition
+    action.accept(new Partition(a, k + 1));
+    return true;
+  }
+  
+  @Override
+  public Spliterator<Partition> trySplit() {
+    if (a != null || remainder == 0) 
+      return null;
+    // While only one number can follow the prefix, append it.
+    while (true) {
+      if (2 * lo > remainder) 
+        lo = remainder;                                                      // nothing in (remainder / 2, remainder) can begin a partition of remainder
+      if (lo > hi || lo == remainder) 
+        return null;                                                         // no partitions, or a single one
+      if (next(lo) <= hi) 
+        break;
+      prefix = Arrays.copyOf(prefix, prefix.length + 1);
+      prefix[prefix.length - 1] = lo;
+      remainder -= lo;
+      hi = remainder;
+    }
+    int[] longer = Arrays.copyOf(prefix, prefix.length + 1);
+    longer[prefix.length] = lo;
+    PartitionSpliterator split = new PartitionSpliterator(longer, remainder - lo, lo, remainder - lo);
+    lo = next(lo);
+    return split;
+  }
+  
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;                                                   // unknown, and too costly to count
+  }
+  
+  @Override
+  public int characteristics() {
+    return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+  }
+  
+  @Override
+  public Comparator<? super Partition> getComparator() {
+    return null;                                                             // the natural order of Partition
+  }
+  
+  
+  /*
+  Helper methods.
+  */
+  
+  /**
+   * Returns the least number greater than x which can begin 
+   * a partition of remainder with parts at least x + 1.
+   * @param x
+   * @return 
+   */
+  private int next(int x) {
+    return (2 * (x + 1) <= remainder) ? x + 1 : remainder;
+  }
+  /**
+   * Allocates the traversal state, positioned just before the
+   * first partition whose number after the prefix is lo.
+   */
+  private void start() {
+    int b = prefix.length;
+    a = Arrays.copyOf(prefix, b + remainder + 2);
+    a[b]     = lo - 1;
+    a[b + 1] = remainder - lo + 1;
+    k = b + 1;
+    done = remainder > 0 && lo > hi;
+  }
+  
+}
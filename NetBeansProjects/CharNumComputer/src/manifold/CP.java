@@ -23,8 +23,10 @@
  */
 package manifold;
 
+import lib.Binomials;
 import polynomial.*;
 import java.math.*;
+import java.util.*;
 
 /**
  * Models the complex projective space CP(n).
@@ -41,6 +43,8 @@ import java.math.*;
  *    p(CP(n)) = (1 + u^2)^n+1 
  *             = sum_{i=0}^{floor(n/2)} binomial(n+1, i) u^2i
  * The Stiefel-Whitney class is the mod-2 reduction of the Chern class.
+ * The coefficients are read from the shared table in lib.Binomials,
+ * and their parities from Lucas' theorem, so they are exact for every n.
  * 
  * @author William Gollinger
  */
@@ -68,8 +72,8 @@ public class CP extends Manifold {
     MultiDegree u = mb.set(0, 2).build();
     p.mu = mb.set(0, 2 * n).build();
     // set cohomology
-    p.cohomology     = new PolyRing<>(BigInt.ring, u, p.mu);
-    p.mod2Cohomology = new PolyRing<>(IntMod2.ring, u, p.mu);
+    p.cohomology     = new PolyRing<>(BigInt.ring, u, p.mu, PolyRing.Storage.AUTO);
+    p.mod2Cohomology = new PolyRing<>(IntMod2.ring, u, p.mu, PolyRing.Storage.AUTO);
     // set characteristic classes
     computeCharClasses(p);
     return p;
@@ -81,27 +85,23 @@ public class CP extends Manifold {
    * @param p
    */
   private static void computeCharClasses(Properties p) {
-    // compute Chern class and Pontryagin class at the same time
-    PolyRing<BigInt>.Element pontClass  = p.cohomology.zero();
-    PolyRing<BigInt>.Element chernClass = p.cohomology.zero();
+    Map<MultiDegree, BigInt>  chern = new HashMap<>();
+    Map<MultiDegree, BigInt>  pont  = new HashMap<>();
+    Map<MultiDegree, IntMod2> sw    = new HashMap<>();
     MultiDegree.Builder mb = new MultiDegree.Builder(1);
-    int bound = p.rDim / 4;                                                    // Integer division is being use here, so it's really floor(rDim/4).
+    int bound = p.rDim / 4;                                                    // p_i vanishes for i > floor(rDim / 4)
+    BigInteger[] binomials = Binomials.row(p.cDim + 1);
     for (int i = 0; i < p.cDim + 1; i++) {
-      BigInt b = new BigInt(binomial(p.cDim + 1, i));
-      // computes (1 + u)^{n+1}
-      chernClass = p.cohomology.add(
-              chernClass, 
-              p.cohomology.makeElement(mb.set(0, 2 * i).build(), b));
-      // computes (1 + u^)^{n+1}
-      if (i <= bound) {
-        pontClass = p.cohomology.add(
-                pontClass, 
-                p.cohomology.makeElement(mb.set(0, 4 * i).build(), b));
-      }
+      BigInt b = BigInt.valueOf(binomials[i]);
+      chern.put(mb.set(0, 2 * i).build(), b);                                // computes (1 + u)^{n+1}
+      if (i <= bound) 
+        pont.put(mb.set(0, 4 * i).build(), b);                               // computes (1 + u^2)^{n+1}
+      if (Binomials.binomialMod2(p.cDim + 1, i) == 1) 
+        sw.put(mb.set(0, 2 * i).build(), IntMod2.ring.one());
     }
-    p.pontClass   = pontClass;
-    p.chernClass  = chernClass;
-    p.swClass     = reduceMod2(chernClass, p);
+    p.chernClass = p.cohomology.makeElement(chern);
+    p.pontClass  = p.cohomology.makeElement(pont);
+    p.swClass    = p.mod2Cohomology.makeElement(sw);
   }
   /**
    * Returns "n choose k", that is
@@ -111,18 +111,7 @@ public class CP extends Manifold {
    * @return 
    */
   protected static BigInteger binomial(int n, int k) {
-    if (n < 0 || n < k) {
-      return BigInteger.ZERO;
-    }
-    //   * Got this from StackOverflow
-    // TODO cite better or write own version
-    if (k > n - k)
-      k = n - k;
-
-    long b = 1;
-    for (int i = 1, m = n; i <= k; i++, m--)
-      b = b * m / i;
-    return BigInteger.valueOf(b);
+    return Binomials.binomial(n, k);
   }
 
   
@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package manifold;
+
+import polynomial.*;
+import lib.*;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A FactoredEvaluator computes the characteristic numbers of 
+ * a product manifold from the characteristic numbers of its factors,
+ * for one multiplicative characteristic class.
+ * 
+ * If X = F_0 x ... x F_{r-1} and x is multiplicative, the component 
+ * x_d(X) is the sum over d_0 + ... + d_{r-1} = d of the tensor product 
+ * of the x_{d_i}(F_i).  So for a partition (l_0, ..., l_{k-1}) the number 
+ * x_l[X] is a sum over k by r matrices D of non-negative integers 
+ * whose j-th row sums to l_j and whose i-th column sums to n_i, 
+ * where F_i has dimension n_i in units of the class's degree.  
+ * Each matrix contributes the product over i of x_{D_i}[F_i], 
+ * where D_i is the partition formed by the non-zero entries of column i.
+ * 
+ * The columns are chosen one factor at a time.  What is left to choose 
+ * only depends on the row sums still missing, and not on their order,
+ * so the sum over the remaining columns is memoized by the partition 
+ * of missing row sums, and is shared by every partition evaluated.
+ * Rows with the same missing sum are interchangeable, so each column 
+ * is chosen up to permuting them, and weighted by the number of 
+ * columns it stands for.  An entry which is not a part of any partition 
+ * with a non-zero number of its factor is never chosen, and missing 
+ * row sums which no choice of such entries adds up to are given up on
+ * right away.
+ * 
+ * When every factor is the same M, as for a Power, the sum over the 
+ * last columns only depends on how many factors are left, and not on 
+ * which; and the missing row sums add up to that many times the 
+ * dimension of M.  So all the columns share one memo, keyed by 
+ * the partition of missing row sums alone, and the factors' 
+ * symmetry costs nothing beyond it.
+ * 
+ * This never multiplies polynomials, and in particular never forms 
+ * the characteristic class of X, whose number of terms is the product 
+ * of the numbers of terms of the factors' classes.
+ * 
+ * A FactoredEvaluator should not be shared between threads.
+ * 
+ * @author William Gollinger
+ * @param <C>
+ */
+class FactoredEvaluator<C extends Coefficient<C>> {
+  
+  private final List<Map<Partition, C>> factorNums;                          // factorNums.get(i) holds the numbers of F_i
+  private final int[]                   dims;                                // dims[i] is n_i
+  private final boolean[][]             parts;                               // parts[i][a] is true iff a is a part of a partition with a non-zero number of F_i
+  private final BitSet[]                reachable;                           // reachable[i] holds the sums of at most one such part of each of F_i, ..., F_{r-1}
+  private final C                       zero;
+  private final C                       one;
+  private final Function<BigInteger, C> count;                               // maps a number of columns to a coefficient
+  private final List<Map<Partition, C>> memo;                                // memo.get(i) maps missing row sums to the sum over columns i, ..., r - 1
+  private final boolean                 identical;                           // true iff every factor is the same, and memo.get(i) is one map for all i
+  
+  /**
+   * Constructs a FactoredEvaluator for a product whose i-th factor 
+   * has dimension dims[i] and characteristic numbers factorNums.get(i).
+   * @param factorNums
+   * @param dims
+   * @param cRing
+   * @param count 
+   */
+  FactoredEvaluator(
+          List<Map<Partition, C>> factorNums, 
+          int[] dims, 
+          C cRing,
+          Function<BigInteger, C> count) {
+    if (factorNums.size() != dims.length) 
+      throw new IllegalArgumentException();
+    this.factorNums = factorNums;
+    this.dims       = dims;
+    this.zero       = cRing.zero();
+    this.one        = cRing.one();
+    this.count      = count;
+    boolean same = true;
+    for (int i = 1; i < dims.length; i++) 
+      same &= (factorNums.get(i) == factorNums.get(0) && dims[i] == dims[0]);
+    identical = same;
+    memo = new ArrayList<>();
+    Map<Partition, C> shared = new HashMap<>();
+    for (int i = 0; i <= dims.length; i++) 
+      memo.add(identical ? shared : new HashMap<>());
+    parts = new boolean[dims.length][];
+    for (int i = 0; i < dims.length; i++) {
+      boolean[] p = new boolean[dims[i] + 1];
+      factorNums.get(i).forEach((part, a) -> {
+        if (!a.isZero()) 
+          part.iterator().forEachRemaining((int k) -> p[k] = true);
+      });
+      parts[i] = p;
+    }
+    reachable = new BitSet[dims.length + 1];
+    reachable[dims.length] = new BitSet();
+    reachable[dims.length].set(0);
+    for (int i = dims.length - 1; i >= 0; i--) {
+      BitSet sums = (BitSet) reachable[i + 1].clone();
+      for (int a = 1; a <= dims[i]; a++) {
+        if (!parts[i][a]) 
+          continue;
+        for (int b = reachable[i + 1].nextSetBit(0); b >= 0; b = reachable[i + 1].nextSetBit(b + 1)) 
+          sums.set(a + b);
+      }
+      reachable[i] = sums;
+    }
+  }
+  
+  
+  /*
+  Evaluation.
+  */
+  
+  /**
+   * Returns the characteristic number of the product for part.
+   * @param part
+   * @return 
+   */
+  C evaluate(Partition part) {
+    return remaining(0, part);
+  }
+  /**
+   * Returns the sum over the choices of columns i, ..., r - 1 
+   * whose row sums are the numbers of missing.
+   * @param i
+   * @param missing
+   * @return 
+   */
+  private C remaining(int i, Partition missing) {
+    if (i == dims.length) 
+      return (missing.size() == 0) ? one : zero;
+    if (i == dims.length - 1) {                                              // the last column has to be exactly what is missing
+      if (missing.sum() != dims[i]) 
+        return zero;
+      C number = (missing.size() == 0) ? one : factorNums.get(i).get(missing);
+      return (number == null) ? zero : number;
+    }
+    if (identical && missing.sum() != (dims.length - i) * dims[0])          // the shared memo only holds sums over as many columns as missing asks for
+      return zero;
+    for (int j = 0; j < missing.size(); j++) 
+      if (!reachable[i].get(missing.get(j))) return zero;
+    C known = memo.get(i).get(missing);
+    if (known != null) 
+      return known;
+    // missing has groups of equal numbers, in ascending order.
+    List<Integer> values = new ArrayList<>();
+    List<Integer> mults  = new ArrayList<>();
+    for (int j = 0; j < missing.size(); j++) {
+      if (values.isEmpty() || values.get(values.size() - 1) != missing.get(j)) {
+        values.add(missing.get(j));
+        mults.add(0);
+      }
+      mults.set(mults.size() - 1, mults.get(mults.size() - 1) + 1);
+    }
+    Column column = new Column(i, values, mults);
+    column.choose(0, dims[i], Integer.MAX_VALUE, 0);
+    memo.get(i).put(missing, column.sum);
+    return column.sum;
+  }
+  
+  
+  /*
+  Nested class FactoredEvaluator.Column
+  */
+  
+  /**
+   * A Column enumerates the i-th columns for given missing row sums,
+   * up to permuting rows with the same missing sum, 
+   * and accumulates their contributions.
+   */
+  private class Column {
+    
+    private final int           i;
+    private final List<Integer> values;                                      // the distinct missing row sums
+    private final List<Integer> mults;                                       // mults.get(g) rows are missing values.get(g)
+    private final List<Integer> entries = new ArrayList<>();                 // the non-zero entries of the column chosen so far
+    private final List<Integer> rest    = new ArrayList<>();                 // the missing row sums after the column chosen so far
+    private final int[]         taken;                                       // taken[g] rows of group g have an entry so far
+    private BigInteger          ways    = BigInteger.ONE;                    // the number of columns the choices so far stand for
+    private C                   sum     = zero;
+    
+    private Column(int i, List<Integer> values, List<Integer> mults) {
+      this.i      = i;
+      this.values = values;
+      this.mults  = mults;
+      taken = new int[values.size()];
+    }
+    
+    /**
+     * Chooses the remaining entries of group g and the groups after it,
+     * where the entries of group g come in non-increasing order, 
+     * and the next one is at most max and repeats the previous 
+     * run of equal entries, of length run.
+     * @param g
+     * @param left the amount the entries still have to add up to
+     * @param max
+     * @param run 
+     */
+    private void choose(int g, int left, int max, int run) {
+      if (g == values.size()) {
+        if (left == 0) 
+          contribute();
+        return;
+      }
+      int v = values.get(g);
+      int m = mults.get(g);
+      // Leave the other rows of the group as they are, and move on.
+      for (int j = taken[g]; j < m; j++) 
+        rest.add(v);
+      choose(g + 1, left, Integer.MAX_VALUE, 0);
+      for (int j = taken[g]; j < m; j++) 
+        rest.remove(rest.size() - 1);
+      if (taken[g] == m) 
+        return;
+      // Give one more row of the group the entry a.
+      for (int a = Math.min(Math.min(v, left), max); a >= 1; a--) {
+        if (!parts[i][a]) 
+          continue;
+        int newRun = (a == max) ? run + 1 : 1;
+        BigInteger before = ways;
+        // Of the m - taken[g] rows left, choose the one for a, 
+        // without telling apart the newRun rows with equal entries.
+        ways = ways.multiply(BigInteger.valueOf(m - taken[g]))
+                   .divide(BigInteger.valueOf(newRun));
+        taken[g]++;
+        entries.add(a);
+        if (a < v) 
+          rest.add(v - a);
+        choose(g, left - a, a, newRun);
+        if (a < v) 
+          rest.remove(rest.size() - 1);
+        entries.remove(entries.size() - 1);
+        taken[g]--;
+        ways = before;
+      }
+    }
+    /**
+     * Adds the contribution of the column chosen so far.
+     */
+    private void contribute() {
+      C number = entries.isEmpty() ? one : factorNums.get(i).get(new Partition(entries));
+      if (number == null || number.isZero()) 
+        return;
+      C tail = remaining(i + 1, new Partition(rest));
+      if (tail.isZero()) 
+        return;
+      sum = sum.plus(count.apply(ways).times(number).times(tail));
+    }
+    
+  }
+  
+}
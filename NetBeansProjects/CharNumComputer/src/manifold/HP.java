@@ -23,6 +23,9 @@
  */
 package manifold;
 
+import java.math.BigInteger;
+import java.util.*;
+import lib.Binomials;
 import polynomial.*;
 
 /**
@@ -43,6 +46,11 @@ import polynomial.*;
  *  (1 - x)^{-1} = 1 + x + x^2 + x^3 + ...
  * Since u is truncated, (1 + 4u)^{-1} has a finite expression, and so
  *  p(HP(n) = (sum_{i=0}^n binom(2n+2, i) u^i) x (sum_{i=0}^n (-4)^i u^i)
+ * Multiplying out, the coefficient p_i of u^i satisfies
+ *  p_i = binom(2n+2, i) - 4 p_{i-1}
+ * The binomial coefficients are read from the shared table in lib.Binomials,
+ * and their parities from Lucas' theorem, so the coefficients are exact 
+ * for every n.
  * 
  * @author William Gollinger
  */
@@ -64,8 +72,8 @@ public class HP extends Manifold {
     MultiDegree.Builder mb = new MultiDegree.Builder(1);
     p.mu = mb.set(0, p.rDim).build();
     MultiDegree variables = mb.set(0, 4).build();
-    p.cohomology     = new PolyRing<>(BigInt.ring,  variables, p.mu);
-    p.mod2Cohomology = new PolyRing<>(IntMod2.ring, variables, p.mu);
+    p.cohomology     = new PolyRing<>(BigInt.ring,  variables, p.mu, PolyRing.Storage.AUTO);
+    p.mod2Cohomology = new PolyRing<>(IntMod2.ring, variables, p.mu, PolyRing.Storage.AUTO);
     // compute characteristic classes
     p.chernClass = null;
     setCharClasses(p, n, mb);
@@ -80,38 +88,22 @@ public class HP extends Manifold {
    * @param mb 
    */
   private static void setCharClasses(Properties p, int n, MultiDegree.Builder mb) {
-    
-    PolyRing<BigInt>.Element pontLeft  = p.cohomology.zero();                // represents the (1 + u)^{2n+1} term of pontClass
-    PolyRing<BigInt>.Element pontRight = p.cohomology.zero();                // represents the (1 + 4u)^{-1} term of pontClass
-    PolyRing<IntMod2>.Element sw       = p.mod2Cohomology.zero();
-    
+    Map<MultiDegree, BigInt>  pont = new HashMap<>();
+    Map<MultiDegree, IntMod2> sw   = new HashMap<>();
+    BigInteger[] binomials = Binomials.row(2 * n + 2);                       // the coefficients of (1 + u)^{2n+2}
+    BigInteger coefficient = BigInteger.ZERO;
     mb.setVars(1).zero();
-    int powerOfMinus4 = 1;                                                   // used to compute the coefficients in pontRight
-    
     for (int i = 0; i < n + 1; i++) {
       MultiDegree d = mb.set(0, 4 * i).build();
-      // compute (1 + u)^{2n+2}
-      pontLeft = p.cohomology.add(
-              pontLeft, 
-              p.cohomology.makeElement(
-                      d, 
-                      new BigInt(CP.binomial((2 * n) + 2, i))));
-      // compute (1 + 4u)^{-1}
-      pontRight = p.cohomology.add(
-              pontRight, 
-              p.cohomology.makeElement(
-                      d, 
-                      new BigInt(powerOfMinus4)));
-      powerOfMinus4 *= -4;
+      // divide (1 + u)^{2n+2} by (1 + 4u)
+      coefficient = binomials[i].subtract(coefficient.shiftLeft(2));
+      pont.put(d, BigInt.valueOf(coefficient));
       // compute (1 + u)^{n+1}  mod 2
-      sw = p.mod2Cohomology.add(
-              sw, 
-              p.mod2Cohomology.makeElement(
-                      d, 
-                      new IntMod2(CP.binomial(n + 1, i).intValue())));
+      if (Binomials.binomialMod2(n + 1, i) == 1) 
+        sw.put(d, IntMod2.ring.one());
     }
-    p.pontClass = p.cohomology.multiply(pontLeft, pontRight);
-    p.swClass = sw;
+    p.pontClass = p.cohomology.makeElement(pont);
+    p.swClass   = p.mod2Cohomology.makeElement(sw);
   }
   
   
@@ -26,6 +26,11 @@ package manifold;
 import polynomial.*;
 import lib.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.math.BigInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The Manifold class is meant to model certain properties of
@@ -53,6 +58,9 @@ public abstract class Manifold {
    * A subclass of Manifold only needs to provide a static method
    * which produces an appropriate Properties object 
    * for the Manifold constructor.
+   * 
+   * The characteristic classes may be left null, in which case 
+   * makeCharClasses sets them the first time one of them is asked for.
    */
   protected static class Properties {
     protected int                       rDim = -1;
@@ -64,22 +72,56 @@ public abstract class Manifold {
     protected PolyRing<BigInt>.Element  chernClass;
     protected PolyRing<BigInt>.Element  pontClass;
     protected PolyRing<IntMod2>.Element swClass;
-    protected CharNumbers               charNumbers;
+    protected volatile CharNumbers      charNumbers;                         // volatile, so that a computed CharNumbers is safely published to every thread
+    protected volatile boolean          hasCharClasses;                      // false until the characteristic classes are set and validated
   }
   
   protected final Properties p;
   
   protected Manifold(Properties p) {
-    if (   p.isComplex && p.chernClass.domain() != p.cohomology
-        || p.pontClass.domain()  != p.cohomology
-        || p.swClass.domain()    != p.mod2Cohomology)
-      throw new IllegalArgumentException("Characteristic classes in wrong domains.");
+    if (p.pontClass != null) {
+      validateCharClasses(p);
+      p.hasCharClasses = true;
+    }
     if (!p.cohomology.truncation().isBounded())
       throw new IllegalArgumentException("Cohomology not of finite type.");
     if (!(p.mu.total() == p.rDim))
       throw new IllegalArgumentException("Fundamental class has wrong degree.");
     this.p = p;
   }
+  private static void validateCharClasses(Properties p) {
+    if (   p.isComplex && p.chernClass.domain() != p.cohomology
+        || p.pontClass.domain()  != p.cohomology
+        || p.swClass.domain()    != p.mod2Cohomology)
+      throw new IllegalArgumentException("Characteristic classes in wrong domains.");
+  }
+  
+  /**
+   * Sets the characteristic classes in p, for a manifold whose 
+   * Properties left them null.
+   * Manifolds which always set their classes never need to override this.
+   * @param p 
+   */
+  protected void makeCharClasses(Properties p) {
+    throw new IllegalStateException("No characteristic classes.");
+  }
+  /**
+   * Returns p, after making its characteristic classes 
+   * if that has not happened yet.
+   * @return 
+   */
+  private Properties charClasses() {
+    if (!p.hasCharClasses) {
+      synchronized (this) {
+        if (!p.hasCharClasses) {
+          makeCharClasses(p);
+          validateCharClasses(p);
+          p.hasCharClasses = true;
+        }
+      }
+    }
+    return p;
+  }
   
   
   /*
@@ -99,16 +141,11 @@ public abstract class Manifold {
   public static PolyRing<IntMod2>.Element reduceMod2(PolyRing<BigInt>.Element q, Properties p) {
     if (q.domain() != p.cohomology)
       throw new IllegalArgumentException("Wrong domain.");
-    PolyRing<IntMod2>.Element answer = p.mod2Cohomology.zero();
+    Map<MultiDegree, IntMod2> terms = new HashMap<>();
     for (Map.Entry<MultiDegree, BigInt> e : q.getTerms().entrySet()) {
-      answer = 
-          p.mod2Cohomology.add(
-              answer,
-              p.mod2Cohomology.makeElement(
-                  e.getKey(), 
-                  new IntMod2(e.getValue())));
-    }
-    return answer;
+      terms.put(e.getKey(), IntMod2.valueOf(e.getValue()));
+    }
+    return p.mod2Cohomology.makeElement(terms);
   }
   
   
@@ -176,7 +213,7 @@ public abstract class Manifold {
    * @return 
    */
   public PolyRing<BigInt>.Element pontClass() {
-    return p.cohomology.makeElement(p.pontClass);
+    return p.cohomology.makeElement(charClasses().pontClass);
   }
   /**
    * Returns a copy of the manifold's Chern class if it is complex,
@@ -186,14 +223,14 @@ public abstract class Manifold {
   public PolyRing<BigInt>.Element chernClass() {
     if (!isComplex())
       throw new UnsupportedOperationException("Manifold is not complex.");
-    return p.cohomology.makeElement(p.chernClass);
+    return p.cohomology.makeElement(charClasses().chernClass);
   }
   /**
    * Returns a copy of the manifold's Stiefel-Whitney class.
    * @return 
    */
   public PolyRing<IntMod2>.Element swClass() {
-    return p.mod2Cohomology.makeElement(p.swClass);
+    return p.mod2Cohomology.makeElement(charClasses().swClass);
   }
   
   
@@ -204,14 +241,47 @@ public abstract class Manifold {
   
   /**
    * Returns a copy of a manifold's CharNumbers object.
+   * If it has not been computed yet, it is computed in the calling thread.
    * @param pc
    * @return 
    */
   public CharNumbers getCharNumbers(PartitionComputer pc) {
-    if (p.charNumbers == null) {
-      p.charNumbers = CharNumbers.computeCharNumbers(this, pc);
+    return getCharNumbers(pc, null);
+  }
+  /**
+   * Returns a copy of a manifold's CharNumbers object.
+   * If it has not been computed yet, the work is split into tasks 
+   * over the partitions of each characteristic class, which run on executor.
+   * If executor is null the computation runs in the calling thread.
+   * 
+   * Several threads may call getCharNumbers on the same manifold:
+   * the CharNumbers object is computed once, and then shared.
+   * @param pc
+   * @param executor
+   * @return 
+   */
+  public CharNumbers getCharNumbers(PartitionComputer pc, Executor executor) {
+    CharNumbers c = p.charNumbers;
+    if (c == null) {
+      synchronized (p) {
+        c = p.charNumbers;
+        if (c == null) {
+          c = computeCharNumbers(pc, executor);
+          p.charNumbers = c;
+        }
+      }
     }
-    return new CharNumbers(p.charNumbers);
+    return new CharNumbers(c);
+  }
+  /**
+   * Computes the manifold's CharNumbers from its characteristic classes.
+   * Manifolds whose numbers can be found some cheaper way override this.
+   * @param pc
+   * @param executor
+   * @return 
+   */
+  protected CharNumbers computeCharNumbers(PartitionComputer pc, Executor executor) {
+    return CharNumbers.computeCharNumbers(this, pc, executor);
   }
   
   /**
@@ -223,7 +293,9 @@ public abstract class Manifold {
    * and the associated characteristic number is the coefficient of mu.
    */
   public static class CharNumbers {
-        
+    
+    private static final int PIECES_PER_THREAD = 4;                          // how many pieces to cut each class's partitions into, per available processor
+    
     private Map<Partition, BigInt>  pontNums;
     private Map<Partition, BigInt>  chernNums;
     private Map<Partition, IntMod2> swNums;
@@ -368,46 +440,373 @@ public abstract class Manifold {
     /**
      * Constructs the CharNumbers object for a manifold.
      * Assumes m's characteristic classes have already been computed.
+     * 
+     * The partitions are streamed from pc rather than stored, 
+     * and the characteristic numbers of every class are computed 
+     * concurrently on executor, or in the calling thread if it is null.
+     * Integral classes are evaluated with LongInt coefficients,
+     * which only fall back to BigInteger arithmetic on overflow.
+     * The Stiefel-Whitney class is evaluated in mod2Cohomology, 
+     * whose elements are bitsets when its truncation box is small.
+     * @param m
+     * @param pc
+     * @param executor
      * @return 
      */
     private static CharNumbers computeCharNumbers(
             Manifold m,
-            PartitionComputer pc) {
+            PartitionComputer pc,
+            Executor executor) {
       
-      Map<Partition, BigInt> pontNums;
+      Tasks tasks = new Tasks(executor);
+      CompletableFuture<Map<Partition, BigInt>> pontNums;
       // There are Pontryagin numbers iff rDim is divisible by 4.
       if (m.rDim() % 4 != 0) {
-        pontNums = null;
+        pontNums = CompletableFuture.completedFuture(null);
       } else {
-        pontNums = CharNumbers.<BigInt>genericComputeCharNumbers(
-                m.cohomology(),
-                m.pontClass(),
-                m.mu(),
-                4,
-                pc);
+        pontNums = integralCharNumbers(m, m.pontClass(), pc, 4, tasks);
       }
-      Map<Partition, BigInt> chernNums;
-      Map<Partition, IntMod2> swNums;
+      CompletableFuture<Map<Partition, BigInt>> chernNums;
+      CompletableFuture<Map<Partition, IntMod2>> swNums;
       // There are Chern numbers iff m is complex.
       if (m.isComplex()) {
-        chernNums = CharNumbers.<BigInt>genericComputeCharNumbers(
-                m.cohomology(),
-                m.chernClass(),
-                m.mu(),
-                2,
-                pc);
-        swNums = chernToSW(chernNums, pc);
+        chernNums = integralCharNumbers(m, m.chernClass(), pc, 2, tasks);
+        swNums = null;
       } else {
-        chernNums = null;
+        chernNums = CompletableFuture.completedFuture(null);
         swNums = CharNumbers.<IntMod2>genericComputeCharNumbers(
                 m.mod2Cohomology(),
                 m.swClass(),
                 m.mu(),
+                pc.streamPartitions(m.rDim()).spliterator(),
                 1,
-                pc);
+                tasks);
+      }
+      
+      Map<Partition, BigInt> chern = tasks.join(chernNums);
+      return new CharNumbers(
+              tasks.join(pontNums), 
+              chern, 
+              (swNums == null) ? chernToSW(chern, pc) : tasks.join(swNums));
+    }
+    /**
+     * Constructs the CharNumbers object for the product of factors,
+     * from the CharNumbers of the factors.
+     * 
+     * Every characteristic class of a product of CP(n)s and HP(n)s is 
+     * multiplicative, so its numbers are sums of products of numbers 
+     * of the factors, which FactoredEvaluator finds without multiplying
+     * any polynomials.  The factors' numbers are computed first, 
+     * and then each class is evaluated by its own task on executor, 
+     * or in the calling thread if it is null.
+     * @param factors
+     * @param pc
+     * @param executor
+     * @return 
+     */
+    static CharNumbers productCharNumbers(
+            List<Manifold> factors,
+            PartitionComputer pc,
+            Executor executor) {
+      
+      Tasks tasks = new Tasks(executor);
+      int rDim = 0;
+      boolean isComplex = true;
+      List<CharNumbers> nums = new ArrayList<>();
+      for (Manifold f : factors) {
+        rDim += f.rDim();
+        isComplex &= f.isComplex();
+        nums.add(f.getCharNumbers(pc, executor));
+      }
+      CompletableFuture<Map<Partition, BigInt>> pontNums;
+      // There are Pontryagin numbers iff rDim is divisible by 4.
+      if (rDim % 4 != 0) {
+        pontNums = CompletableFuture.completedFuture(null);
+      } else {
+        pontNums = factoredCharNumbers(
+                factors, nums, c -> c.pontNums, BigInt.ring, BigInt::valueOf, 4, pc, tasks);
+      }
+      CompletableFuture<Map<Partition, BigInt>> chernNums;
+      CompletableFuture<Map<Partition, IntMod2>> swNums;
+      // There are Chern numbers iff every factor is complex.
+      if (isComplex) {
+        chernNums = factoredCharNumbers(
+                factors, nums, c -> c.chernNums, BigInt.ring, BigInt::valueOf, 2, pc, tasks);
+        swNums = null;
+      } else {
+        chernNums = CompletableFuture.completedFuture(null);
+        swNums = factoredCharNumbers(
+                factors, nums, c -> c.swNums, IntMod2.ring, 
+                c -> IntMod2.valueOf(c.testBit(0)), 1, pc, tasks);
+      }
+      
+      Map<Partition, BigInt> chern = tasks.join(chernNums);
+      return new CharNumbers(
+              tasks.join(pontNums), 
+              chern, 
+              (swNums == null) ? chernToSW(chern, pc) : tasks.join(swNums));
+    }
+    /**
+     * Computes the numbers of a multiplicative class of the product 
+     * of factors from the factors' numbers of that class, 
+     * given by get, as one of tasks.
+     * The class's components are indexed by the partitions of rDim / scale.
+     * @param <C>
+     * @param factors
+     * @param nums
+     * @param get
+     * @param cRing
+     * @param count
+     * @param scale
+     * @param pc
+     * @param tasks
+     * @return 
+     */
+    private static <C extends Coefficient<C>> CompletableFuture<Map<Partition, C>> factoredCharNumbers(
+            List<Manifold> factors,
+            List<CharNumbers> nums,
+            Function<CharNumbers, Map<Partition, C>> get,
+            C cRing,
+            Function<BigInteger, C> count,
+            int scale,
+            PartitionComputer pc,
+            Tasks tasks) {
+      
+      return tasks.submit(() -> {
+        int n = 0;
+        boolean divisible = true;
+        int[] dims = new int[factors.size()];
+        List<Map<Partition, C>> factorNums = new ArrayList<>();
+        for (int i = 0; i < factors.size(); i++) {
+          int rDim = factors.get(i).rDim();
+          divisible &= (rDim % scale == 0);
+          dims[i] = rDim / scale;
+          n += rDim;
+          factorNums.add(get.apply(nums.get(i)));
+        }
+        Map<Partition, C> charNums = new HashMap<>();
+        // A factor whose dimension is not a multiple of scale 
+        // can't be filled by the class, so every number is 0.
+        FactoredEvaluator<C> evaluator = divisible 
+                ? new FactoredEvaluator<>(factorNums, dims, cRing, count) 
+                : null;
+        pc.streamPartitions(n / scale).forEach(part -> charNums.put(
+                part, 
+                (evaluator == null) ? cRing.zero() : evaluator.evaluate(part)));
+        return charNums;
+      });
+    }
+    /**
+     * Computes the characteristic numbers of an integral class poly of m,
+     * whose components are indexed by the partitions of rDim / scale,
+     * with LongInt coefficients.
+     * @param m
+     * @param poly
+     * @param pc
+     * @param scale
+     * @param tasks
+     * @return 
+     */
+    private static CompletableFuture<Map<Partition, BigInt>> integralCharNumbers(
+            Manifold m,
+            PolyRing<BigInt>.Element poly,
+            PartitionComputer pc,
+            int scale,
+            Tasks tasks) {
+      
+      PolyRing<LongInt> ring = sameShape(LongInt.ring, poly.domain());
+      return CharNumbers.<LongInt>genericComputeCharNumbers(
+              ring,
+              image(ring, poly, LongInt::valueOf),
+              m.mu(),
+              pc.streamPartitions(m.rDim() / scale).spliterator(),
+              scale,
+              tasks)
+          .thenApply(CharNumbers::toBigInt);
+    }
+    /**
+     * Computes the characteristic numbers of an integral class poly 
+     * with fundamental class mu, whose components are indexed by the 
+     * partitions of mu.total() / scale, modulo several primes.
+     * 
+     * The number of primes comes from a bound on the numbers, and each
+     * prime is an independent computation with word-sized IntModP 
+     * coefficients, so no BigInteger arithmetic happens until the 
+     * residues are combined.  This pays off when most of the numbers 
+     * overflow a long, such as for CP(n) with n past the mid twenties; 
+     * otherwise getCharNumbers, which repeats nothing, is faster.
+     * 
+     * getCharNumbers never calls this, since the bound alone doesn't 
+     * tell which is faster: it overflows a long from CP(16) on.
+     * Callers who expect large numbers opt in by calling it directly 
+     * on the class they need, such as m.pontClass() with scale 4 and
+     * m.chernClass() with scale 2.  The primes are computed on executor,
+     * and whichever of them no thread of executor has started, or which 
+     * executor rejects, in the calling thread; so the returned future 
+     * is already complete, holding the numbers or what was thrown.
+     * @param poly
+     * @param mu
+     * @param pc
+     * @param scale
+     * @param executor
+     * @return 
+     */
+    public static CompletableFuture<Map<Partition, BigInt>> modularCharNumbers(
+            PolyRing<BigInt>.Element poly,
+            MultiDegree mu,
+            PartitionComputer pc,
+            int scale,
+            Executor executor) {
+      
+      int n = mu.total() / scale;
+      Tasks tasks = new Tasks(executor);
+      CompletableFuture<Map<Partition, BigInt>> nums = modularCharNumbers(
+              poly, 
+              mu, 
+              () -> pc.streamPartitions(n).spliterator(), 
+              scale, 
+              bound(poly.getHomogeneousParts(), n, scale), 
+              tasks);
+      try {
+        return CompletableFuture.completedFuture(tasks.join(nums));
+      } catch (RuntimeException | Error e) {
+        CompletableFuture<Map<Partition, BigInt>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        return failed;
       }
+    }
+    /**
+     * Computes the characteristic numbers of an integral class poly 
+     * modulo enough primes to determine them, given that none has 
+     * absolute value greater than bound, and recovers them by the 
+     * Chinese remainder theorem.
+     * The computations for the different primes are independent, 
+     * and all of them are pieces of tasks.
+     * @param poly
+     * @param mu
+     * @param parts supplies a fresh Spliterator over the partitions for each prime
+     * @param scale
+     * @param bound
+     * @param tasks
+     * @return 
+     */
+    private static CompletableFuture<Map<Partition, BigInt>> modularCharNumbers(
+            PolyRing<BigInt>.Element poly,
+            MultiDegree mu,
+            Supplier<Spliterator<Partition>> parts,
+            int scale,
+            BigInteger bound,
+            Tasks tasks) {
       
-      return new CharNumbers(pontNums, chernNums, swNums);
+      List<CompletableFuture<Map<Partition, IntModP>>> residues = new ArrayList<>();
+      BigInteger modulus = BigInteger.ONE;
+      // The numbers lie in [-bound, bound], so they are determined 
+      // modulo anything greater than 2 * bound.  There is always at 
+      // least one prime, so that the partitions can be read off residues.
+      for (int i = 0; i == 0 || modulus.compareTo(bound.shiftLeft(1)) <= 0; i++) {
+        IntModP field = IntModP.ring(IntModP.prime(i));
+        PolyRing<IntModP> ring = sameShape(field, poly.domain());
+        residues.add(CharNumbers.<IntModP>genericComputeCharNumbers(
+                ring,
+                image(ring, poly, field::valueOf),
+                mu,
+                parts.get(),
+                scale,
+                tasks));
+        modulus = modulus.multiply(BigInteger.valueOf(field.modulus()));
+      }
+      return CompletableFuture
+              .allOf(residues.toArray(new CompletableFuture<?>[residues.size()]))
+              .thenApply(v -> {
+                Map<Partition, BigInt> nums = new HashMap<>();
+                List<IntModP> r = new ArrayList<>();
+                for (Partition part : residues.get(0).join().keySet()) {
+                  r.clear();
+                  residues.forEach(f -> r.add(f.join().get(part)));
+                  nums.put(part, BigInt.valueOf(IntModP.crt(r)));
+                }
+                return nums;
+              });
+    }
+    /**
+     * Returns a bound on the absolute values of the characteristic numbers
+     * of a class with the given homogeneous components, 
+     * whose components are indexed by the partitions of n.
+     * 
+     * The sum of the absolute values of the coefficients of a product
+     * is at most the product of those sums for the factors, so the
+     * largest such product over all partitions bounds every number.
+     * @param graded
+     * @param n
+     * @param scale
+     * @return 
+     */
+    private static BigInteger bound(
+            Map<Integer, PolyRing<BigInt>.Element> graded, 
+            int n, 
+            int scale) {
+      BigInteger[] norms = new BigInteger[n + 1];
+      for (int i = 1; i <= n; i++) {
+        BigInteger norm = BigInteger.ZERO;
+        PolyRing<BigInt>.Element component = graded.get(scale * i);
+        if (component != null) {
+          for (BigInt a : component.getTerms().values()) 
+            norm = norm.add(a.value().abs());
+        }
+        norms[i] = norm;
+      }
+      BigInteger[] best = new BigInteger[n + 1];                             // best[s] is the largest product of norms over the partitions of s
+      best[0] = BigInteger.ONE;
+      for (int s = 1; s <= n; s++) {
+        best[s] = BigInteger.ZERO;
+        for (int i = 1; i <= s; i++) 
+          best[s] = best[s].max(norms[i].multiply(best[s - i]));
+      }
+      return best[n];
+    }
+    /**
+     * Returns a ring with coefficients cRing, and the same variables,
+     * truncation and storage as ring.
+     * @param <C>
+     * @param cRing
+     * @param ring
+     * @return 
+     */
+    private static <C extends Coefficient<C>> PolyRing<C> sameShape(
+            C cRing, 
+            PolyRing<?> ring) {
+      return new PolyRing<>(cRing, ring.variables(), ring.truncation(), ring.storage());
+    }
+    /**
+     * Returns the image of q in ring, which has the same variables
+     * and truncation as q's domain, under the map f on coefficients.
+     * @param <C>
+     * @param ring
+     * @param q
+     * @param f
+     * @return 
+     */
+    private static <C extends Coefficient<C>> PolyRing<C>.Element image(
+            PolyRing<C> ring, 
+            PolyRing<BigInt>.Element q,
+            Function<BigInteger, C> f) {
+      Map<MultiDegree, C> terms = new HashMap<>();
+      for (Map.Entry<MultiDegree, BigInt> e : q.getTerms().entrySet()) {
+        terms.put(e.getKey(), f.apply(e.getValue().value()));
+      }
+      return ring.makeElement(terms);
+    }
+    /**
+     * Returns a copy of nums with BigInt values, or null if nums is null.
+     * @param nums
+     * @return 
+     */
+    private static Map<Partition, BigInt> toBigInt(Map<Partition, LongInt> nums) {
+      if (nums == null) 
+        return null;
+      Map<Partition, BigInt> converted = new HashMap<>();
+      nums.forEach((part, a) -> converted.put(part, a.toBigInt()));
+      return converted;
     }
     /** 
      * Computes the characteristic numbers for a given polynomial
@@ -418,42 +817,199 @@ public abstract class Manifold {
      *  Chern has scale 2.
      *  Pontryagin has scale 4.
      * 
+     * The partitions arrive in lexicographic order, and are split into
+     * contiguous pieces, each evaluated by its own task with its own 
+     * ProductEvaluator, so that neighbouring partitions still share 
+     * partial products.
+     * 
      * Assumes:
-     *  poly is an element of ring, and
+     *  poly is an element of ring, 
+     *  parts are the partitions of mu.total() / scale, and
      *  m.total() % scale == 0
      * 
      * @param <C>
      * @param ring
      * @param poly
      * @param mu
+     * @param parts
      * @param scale
-     * @param pc
+     * @param tasks
      * @return 
      */
-    private static <C extends Coefficient<C>> Map<Partition, C> genericComputeCharNumbers(
+    private static <C extends Coefficient<C>> CompletableFuture<Map<Partition, C>> genericComputeCharNumbers(
             PolyRing<C> ring, 
             PolyRing<C>.Element poly, 
             MultiDegree mu,
+            Spliterator<Partition> parts,
             int scale,
-            PartitionComputer pc) {
-      
-      Map<Partition, C> genericCharNums = new HashMap<>();
+            Tasks tasks) {
       
       Map<Integer, PolyRing<C>.Element> gradedPoly = poly.getHomogeneousParts();
-      List<Partition> parts = pc.getPartitions(mu.total() / scale);
       
-      for (Partition part : parts) {
-        PolyRing<C>.Element prod = ring.one();
-        for (Integer i : part.getNumbers()) {
-          if (gradedPoly.get(scale * i) != null) {
-            prod = ring.multiply(prod, gradedPoly.get(scale * i));
-          } else {
-            prod = ring.zero();
+      List<Spliterator<Partition>> pieces = new ArrayList<>();
+      pieces.add(parts);
+      int target = tasks.isParallel() 
+                 ? PIECES_PER_THREAD * Runtime.getRuntime().availableProcessors()
+                 : 1;
+      // Splitting peels off the first, and largest, part of a piece,
+      // so keep splitting the first piece that still splits.
+      for (int i = 0; pieces.size() < target && i < pieces.size(); ) {
+        Spliterator<Partition> split = pieces.get(i).trySplit();
+        if (split == null) 
+          i++;
+        else 
+          pieces.add(i, split);
+      }
+      List<CompletableFuture<Map<Partition, C>>> results = new ArrayList<>();
+      for (Spliterator<Partition> piece : pieces) 
+        results.add(tasks.submit(
+            () -> evaluateCharNumbers(ring, gradedPoly, mu, piece, scale)));
+      return CompletableFuture
+              .allOf(results.toArray(new CompletableFuture<?>[results.size()]))
+              .thenApply(v -> {
+                Map<Partition, C> genericCharNums = new HashMap<>();
+                results.forEach(t -> genericCharNums.putAll(t.join()));
+                return genericCharNums;
+              });
+    }
+    /**
+     * Returns the coefficient of mu in the product of the graded pieces
+     * of a characteristic class indexed by each of the remaining parts.
+     * @param <C>
+     * @param ring
+     * @param gradedPoly
+     * @param mu
+     * @param parts
+     * @param scale
+     * @return 
+     */
+    private static <C extends Coefficient<C>> Map<Partition, C> evaluateCharNumbers(
+            PolyRing<C> ring,
+            Map<Integer, PolyRing<C>.Element> gradedPoly,
+            MultiDegree mu,
+            Spliterator<Partition> parts,
+            int scale) {
+      
+      Map<Partition, C> charNums = new HashMap<>();
+      ProductEvaluator<C> evaluator = new ProductEvaluator<>(ring, mu);
+      C zero = ring.cRing().zero();
+      List<PolyRing<C>.Element> factors = new ArrayList<>();
+      parts.forEachRemaining(part -> {
+        factors.clear();
+        for (int j = 0; j < part.size(); j++) {
+          PolyRing<C>.Element factor = gradedPoly.get(scale * part.get(j));
+          if (factor == null) {                                              // a missing component is 0, and so is the product
+            charNums.put(part, zero);
+            return;
           }
+          factors.add(factor);
+        }
+        charNums.put(part, evaluator.evaluate(factors));
+      });
+      return charNums;
+    }
+    /**
+     * Waits for f and returns its value, 
+     * rethrowing whatever the computation threw.
+     * @param <T>
+     * @param f
+     * @return 
+     */
+    private static <T> T join(CompletableFuture<T> f) {
+      try {
+        return f.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException)
+          throw (RuntimeException) e.getCause();
+        if (e.getCause() instanceof Error)
+          throw (Error) e.getCause();
+        throw e;
+      }
+    }
+    
+    /**
+     * Tasks hands the pieces of one computation to an executor, 
+     * or runs them at once in the calling thread if the executor is null.
+     * 
+     * Before waiting for a result, join runs every piece which no 
+     * thread of the executor has started yet.  So the computation 
+     * never waits for the executor to find a free thread, and finishes
+     * even when it was itself started by a task on that executor,
+     * with every other thread busy or waiting.
+     * 
+     * A Tasks belongs to the thread which creates it.
+     */
+    private static final class Tasks {
+      private final Executor executor;
+      private final List<Piece<?>> pieces = new ArrayList<>();
+      
+      private Tasks(Executor executor) {
+        this.executor = executor;
+      }
+      
+      /**
+       * Returns true iff pieces may run on other threads.
+       * @return 
+       */
+      private boolean isParallel() {
+        return executor != null;
+      }
+      /**
+       * Submits task, and returns its result.
+       * @param <T>
+       * @param task
+       * @return 
+       */
+      private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        Piece<T> piece = new Piece<>(task);
+        if (executor == null) {
+          piece.run();
+          return piece;
+        }
+        pieces.add(piece);
+        try {
+          executor.execute(piece);
+        } catch (RejectedExecutionException e) {
+          // join runs the piece instead
+        }
+        return piece;
+      }
+      /**
+       * Runs the pieces nobody has started, then waits for f and 
+       * returns its value, rethrowing whatever the computation threw.
+       * @param <T>
+       * @param f
+       * @return 
+       */
+      private <T> T join(CompletableFuture<T> f) {
+        pieces.forEach(Piece::run);
+        pieces.clear();
+        return CharNumbers.join(f);
+      }
+    }
+    /**
+     * A Piece is a task which is run by whichever thread gets to it first,
+     * either a thread of the executor or the one waiting for it.
+     * @param <T> 
+     */
+    private static final class Piece<T> extends CompletableFuture<T> implements Runnable {
+      private final Supplier<T> task;
+      private final AtomicBoolean claimed = new AtomicBoolean();
+      
+      private Piece(Supplier<T> task) {
+        this.task = task;
+      }
+      
+      @Override
+      public void run() {
+        if (!claimed.compareAndSet(false, true)) 
+          return;
+        try {
+          complete(task.get());
+        } catch (Throwable e) {
+          completeExceptionally(e);
         }
-        genericCharNums.put(part, prod.get(mu));
       }
-      return genericCharNums;
     }
             
     /**
@@ -478,15 +1034,14 @@ public abstract class Manifold {
         n = part.sum();
         break;
       }
-      List<Partition> parts = pc.getPartitions(2 * n);
       IntMod2 zero = IntMod2.ring.zero();
-      parts.stream().forEach(part -> sw.put(part, zero));
+      pc.streamPartitions(2 * n).forEach(part -> sw.put(part, zero));
       // Add potentially non-zero values.
       chern.entrySet()
               .stream()
               .forEach(e -> sw.put(
                       Partition.scale(e.getKey(), 2),
-                      new IntMod2(e.getValue())));
+                      IntMod2.valueOf(e.getValue())));
       return sw;
     }
     
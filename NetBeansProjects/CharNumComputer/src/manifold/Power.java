@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package manifold;
+
+import java.util.*;
+
+/**
+ * Models the k-fold product M^k of a manifold M with itself.
+ * 
+ * A Power is a Product whose factors are all the same instance of M,
+ * so M's characteristic classes and numbers are computed once 
+ * and shared by every factor.  The numbers of M^k are then computed 
+ * from those of M like for any other Product, except that, with every 
+ * factor the same, FactoredEvaluator keeps a single memo for all of 
+ * them, keyed by the partition of row sums the remaining factors 
+ * still have to supply.
+ * 
+ * @author William Gollinger
+ */
+public class Power extends Product {
+  
+  private final Manifold base;
+  private final int      exponent;
+  
+  /**
+   * Constructs the product of k copies of m.
+   * Throws IllegalArgumentException unless k is positive.
+   * @param m
+   * @param k 
+   */
+  public Power(Manifold m, int k) {
+    super(copies(m, k));
+    base     = m;
+    exponent = k;
+  }
+  private static List<Manifold> copies(Manifold m, int k) {
+    if (k < 1) 
+      throw new IllegalArgumentException("Exponent must be positive.");
+    return Collections.nCopies(k, m);
+  }
+  
+  
+  /*
+  Getter methods.
+  */
+  
+  /**
+   * Returns M.
+   * @return 
+   */
+  public Manifold base() {
+    return base;
+  }
+  /**
+   * Returns k.
+   * @return 
+   */
+  public int exponent() {
+    return exponent;
+  }
+  
+}
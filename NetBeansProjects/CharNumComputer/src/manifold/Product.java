@@ -24,7 +24,9 @@
 package manifold;
 
 import polynomial.*;
+import lib.*;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.stream.*;
 
 /**
@@ -61,6 +63,12 @@ import java.util.stream.*;
  * Since products of CP(n) and HP(m) have no 2-torsion, in their integral cohomologies, 
  * all characteristic classes can be computed with the product rule.
  * 
+ * The classes of a product have as many terms as the classes of its
+ * factors put together multiply to, so they are only tensored together 
+ * when one of them is asked for.  The characteristic numbers are 
+ * found from the numbers of the factors instead, 
+ * by the same product rule.
+ * 
  * @author William Gollinger
  */
 public class Product extends Manifold {
@@ -102,15 +110,26 @@ public class Product extends Manifold {
     p.cohomology = new Tensor<>(BigInt.ring, factors
             .stream()
             .map(m -> m.cohomology())
-            .collect(Collectors.toList())
+            .collect(Collectors.toList()),
+            PolyRing.Storage.AUTO
     );
     p.mu = p.cohomology.truncation();
     p.mod2Cohomology = new Tensor<>(IntMod2.ring, factors
             .stream()
             .map(m -> m.mod2Cohomology())
-            .collect(Collectors.toList())
+            .collect(Collectors.toList()),
+            PolyRing.Storage.AUTO
     );
-    // Apply the Whitney Product Formula.
+    // The characteristic classes are left to makeCharClasses.
+    return p;
+  }
+  
+  /**
+   * Applies the Whitney Product Formula to the factors' classes.
+   * @param p 
+   */
+  @Override
+  protected void makeCharClasses(Properties p) {
     p.pontClass = ((Tensor)p.cohomology).tensor(factors
             .stream()
             .map(m -> m.pontClass())
@@ -130,8 +149,17 @@ public class Product extends Manifold {
               .map(m -> m.swClass())
               .collect(Collectors.toList()));
     }
-    
-    return p;
+  }
+  /**
+   * Computes the characteristic numbers from those of the factors,
+   * without the characteristic classes of the product.
+   * @param pc
+   * @param executor
+   * @return 
+   */
+  @Override
+  protected CharNumbers computeCharNumbers(PartitionComputer pc, Executor executor) {
+    return CharNumbers.productCharNumbers(factors, pc, executor);
   }
   
   
@@ -27,6 +27,10 @@ import java.math.BigInteger;
 
 /**
  * BigInt is a Coefficient wrapper around BigInteger.
+ * 
+ * BigInts are immutable, and the values in [-128, 128) are cached, 
+ * like Integer.valueOf: valueOf, zero, one and the arithmetic methods 
+ * return the cached instance rather than allocating a new one.
  * @author William Gollinger
  */
 public class BigInt extends Coefficient<BigInt> {
@@ -36,7 +40,14 @@ public class BigInt extends Coefficient<BigInt> {
    */
   public static BigInt ring = new BigInt();
   
-  private BigInteger value;
+  private static final BigInt[] SMALL = new BigInt[256];                     // SMALL[i] has value i - 128
+  static {
+    for (int i = 0; i < SMALL.length; i++) {
+      SMALL[i] = new BigInt(BigInteger.valueOf(i - 128));
+    }
+  }
+  
+  private final BigInteger value;
 
   
   /*
@@ -67,6 +78,30 @@ public class BigInt extends Coefficient<BigInt> {
   }
   
   
+  /**
+   * Returns a BigInt with the given value, 
+   * which is a cached instance if the value is small.
+   * @param value
+   * @return 
+   */
+  public static BigInt valueOf(BigInteger value) {
+    if (value.bitLength() < 8)
+      return SMALL[value.intValue() + 128];
+    return new BigInt(value);
+  }
+  /**
+   * Returns a BigInt with the given value, 
+   * which is a cached instance if the value is small.
+   * @param value
+   * @return 
+   */
+  public static BigInt valueOf(long value) {
+    if (-128 <= value && value < 128)
+      return SMALL[(int) value + 128];
+    return new BigInt(BigInteger.valueOf(value));
+  }
+  
+  
   /*
   Methods specific to BigInt.
   */
@@ -95,7 +130,7 @@ public class BigInt extends Coefficient<BigInt> {
   public BigInt mod(BigInt b) {
     if (b.value.equals(BigInteger.ZERO)) 
       throw new IllegalArgumentException();
-    return new BigInt(value.mod(b.value));
+    return valueOf(value.mod(b.value));
   }
   
   
@@ -124,20 +159,20 @@ public class BigInt extends Coefficient<BigInt> {
     return value.toString();
   }
   /**
-   * A BigInt is zero iff its value is BigInteger.ZERO.
+   * A BigInt is zero iff its value is 0.
    * @return 
    */
   @Override
   public boolean isZero() {
-    return (value == BigInteger.ZERO);
+    return value.signum() == 0;
   }
   /**
-   * A BigInt is zero iff its value is BigInteger.ONE.
+   * A BigInt is one iff its value is 1.
    * @return 
    */
   @Override
   public boolean isOne() {
-    return (value == BigInteger.ONE);
+    return value.equals(BigInteger.ONE);
   }
   /**
    * Converts an int to a BigInt.
@@ -146,7 +181,7 @@ public class BigInt extends Coefficient<BigInt> {
    */
   @Override
   public BigInt intToCoefficient(int a) {
-    return new BigInt(BigInteger.valueOf(a));
+    return valueOf(a);
   }
   /**
    * Returns a BigInt equal to 0.
@@ -154,7 +189,7 @@ public class BigInt extends Coefficient<BigInt> {
    */
   @Override
   public BigInt zero() {
-    return new BigInt(BigInteger.ZERO);
+    return SMALL[128];
   }
   /**
    * Returns a BigInt equal to 1.
@@ -162,7 +197,7 @@ public class BigInt extends Coefficient<BigInt> {
    */
   @Override
   public BigInt one() {
-    return new BigInt(BigInteger.ONE);
+    return SMALL[129];
   }
   /**
    * Returns a new BigInt which is the sum of this with b.
@@ -171,7 +206,7 @@ public class BigInt extends Coefficient<BigInt> {
    */
   @Override
   public BigInt plus(BigInt b) {
-    return new BigInt(value.add(b.value));
+    return valueOf(value.add(b.value));
   }
   /**
    * Returns a new BigInt which is the product of this with b.
@@ -180,7 +215,7 @@ public class BigInt extends Coefficient<BigInt> {
    */
   @Override
   public BigInt times(BigInt b) {
-    return new BigInt(value.multiply(b.value));
+    return valueOf(value.multiply(b.value));
   }
   /**
    * Returns a BigInt with the negative value.
@@ -189,6 +224,18 @@ public class BigInt extends Coefficient<BigInt> {
    */
   @Override
   public BigInt negative(BigInt b) {
-    return new BigInt(b.value.negate());
+    return valueOf(b.value.negate());
+  }
+  /**
+   * Returns this / k, if k divides this exactly.
+   * @param k
+   * @return 
+   */
+  @Override
+  public BigInt divide(int k) {
+    BigInteger[] qr = value.divideAndRemainder(BigInteger.valueOf(k));
+    if (qr[1].signum() != 0) 
+      throw new ArithmeticException(k + " does not divide " + this + ".");
+    return valueOf(qr[0]);
   }
 }
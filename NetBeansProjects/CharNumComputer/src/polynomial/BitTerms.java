@@ -0,0 +1,400 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * BitTerms stores the terms of a polynomial with IntMod2 coefficients
+ * as a bitset over the truncation box of a PolyRing.
+ * 
+ * Bit i is set iff the monomial at index i of the ring's DenseTerms.Layout
+ * has coefficient 1, so adding polynomials is a word-wise XOR.
+ * 
+ * The first few variables have the smallest strides, so the box splits 
+ * into blocks of at most 64 consecutive bits, over which only those 
+ * variables vary.  Multiplying a block by a monomial in a block shifts it, 
+ * after masking out the bits whose exponents would leave the box,
+ * so the product of two blocks is an XOR of shifted words.
+ * When the first variable alone has more than 64 exponents, 
+ * a block is a row of that variable, and rows are shifted bit-range by bit-range.
+ * 
+ * @author William Gollinger
+ */
+final class BitTerms extends Terms<IntMod2> {
+  
+  private final Blocks blocks;
+  private final DenseTerms.Layout layout;
+  private final long[] words;                                                // bit i of words is set iff the monomial at index i has coefficient 1
+  
+  /**
+   * Constructs an empty BitTerms split into the given blocks.
+   * @param blocks 
+   */
+  BitTerms(Blocks blocks) {
+    this.blocks = blocks;
+    layout = blocks.layout;
+    words  = new long[(layout.size() + 63) >>> 6];
+  }
+  private BitTerms(BitTerms t) {
+    blocks = t.blocks;
+    layout = t.layout;
+    words  = t.words.clone();
+  }
+  
+  
+  /*
+  Implementation.
+  */
+  
+  @Override
+  IntMod2 get(MultiDegree d) {
+    int i = layout.index(d);
+    return (i >= 0 && test(i)) ? IntMod2.valueOf(true) : null;
+  }
+  @Override
+  void put(MultiDegree d, IntMod2 a) {
+    int i = layout.index(d);
+    if (i >= 0) 
+      words[i >>> 6] |= 1L << i;
+  }
+  @Override
+  void accumulate(MultiDegree d, IntMod2 a) {
+    int i = layout.index(d);
+    if (i >= 0 && !a.isZero()) 
+      words[i >>> 6] ^= 1L << i;
+  }
+  @Override
+  int size() {
+    int size = 0;
+    for (long w : words) 
+      size += Long.bitCount(w);
+    return size;
+  }
+  @Override
+  boolean isEmpty() {
+    for (long w : words) 
+      if (w != 0) return false;
+    return true;
+  }
+  @Override
+  void forEach(BiConsumer<MultiDegree, IntMod2> action) {
+    IntMod2 one = IntMod2.valueOf(true);
+    for (int w = 0; w < words.length; w++) {
+      for (long bits = words[w]; bits != 0; bits &= bits - 1) 
+        action.accept(layout.degree((w << 6) + Long.numberOfTrailingZeros(bits)), one);
+    }
+  }
+  @Override
+  BitTerms copy() {
+    return new BitTerms(this);
+  }
+  @Override
+  void clear() {
+    Arrays.fill(words, 0);
+  }
+  /**
+   * XORs the words when t is BitTerms over the same layout.
+   * @param t 
+   */
+  @Override
+  void addAll(Terms<IntMod2> t) {
+    if (!sameLayout(t)) {
+      super.addAll(t);
+      return;
+    }
+    long[] summand = ((BitTerms) t).words;
+    for (int w = 0; w < words.length; w++) 
+      words[w] ^= summand[w];
+  }
+  /**
+   * XORs shifted blocks when p and q are BitTerms over the same layout,
+   * which is the case whenever they come from the same ring as this.
+   * @param p
+   * @param q
+   * @param lower
+   * @param upper 
+   */
+  @Override
+  void multiplyAdd(Terms<IntMod2> p, Terms<IntMod2> q, MultiDegree lower, MultiDegree upper) {
+    if (!sameLayout(p) || !sameLayout(q)) {
+      super.multiplyAdd(p, q, lower, upper);
+      return;
+    }
+    DenseTerms.Layout.Window w = (lower == null && upper.equals(layout.truncation())) 
+               ? layout.full() : layout.window(lower, upper);
+    if (w.isEmpty()) 
+      return;
+    if (blocks.fit == null) 
+      convolveRows((BitTerms) p, (BitTerms) q, w);
+    else 
+      convolveBlocks((BitTerms) p, (BitTerms) q, w);
+  }
+  /**
+   * Counts the pairs of terms multiplying to target 
+   * when q is BitTerms over the same layout.
+   * @param q
+   * @param target
+   * @param zero
+   * @return 
+   */
+  @Override
+  IntMod2 pair(Terms<IntMod2> q, MultiDegree target, IntMod2 zero) {
+    int t = layout.index(target);
+    if (!sameLayout(q) || t < 0) 
+      return super.pair(q, target, zero);
+    BitTerms other = (BitTerms) q;
+    boolean odd = false;
+    for (int w = 0; w <= t >>> 6; w++) {
+      for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+        int a = (w << 6) + Long.numberOfTrailingZeros(bits);
+        if (a > t) 
+          break;
+        if (layout.divides(a, t) && other.test(t - a)) 
+          odd = !odd;
+      }
+    }
+    return IntMod2.valueOf(odd);
+  }
+  
+  /**
+   * Returns true iff bit i is set.
+   * @param i
+   * @return 
+   */
+  private boolean test(int i) {
+    return (words[i >>> 6] & (1L << i)) != 0;
+  }
+  /**
+   * Returns true iff t is BitTerms over the same layout as this.
+   * @param t
+   * @return 
+   */
+  private boolean sameLayout(Terms<IntMod2> t) {
+    return (t instanceof BitTerms) && ((BitTerms) t).layout == layout;
+  }
+  /**
+   * Returns the indices at which the blocks containing a term start, 
+   * in increasing order.
+   * @return 
+   */
+  private int[] occupied() {
+    int[] starts = new int[layout.size() / blocks.size];
+    int k = 0;
+    for (int start = 0; start < layout.size(); start += blocks.size) {
+      for (int pos = start; pos < start + blocks.size; pos += 64) {
+        if (bits(words, pos, Math.min(64, start + blocks.size - pos)) != 0) {
+          starts[k++] = start;
+          break;
+        }
+      }
+    }
+    return Arrays.copyOf(starts, k);
+  }
+  
+  /**
+   * Adds p * q to this, discarding products outside of the window w.
+   * Assumes blocks fit in a word, w is not empty, 
+   * and p and q have the same layout as this, and are not this.
+   * @param p
+   * @param q
+   * @param w 
+   */
+  private void convolveBlocks(BitTerms p, BitTerms q, DenseTerms.Layout.Window w) {
+    long inWindow = blocks.mask(w);
+    DenseTerms.Layout.Window above = w.above(blocks.vars);
+    int n = blocks.size;
+    long[] fit = blocks.fit;
+    int[] qStarts = q.occupied();
+    long[] qBlocks = new long[qStarts.length];
+    for (int j = 0; j < qStarts.length; j++) 
+      qBlocks[j] = bits(q.words, qStarts[j], n);
+    for (int pStart = 0; pStart < layout.size(); pStart += n) {
+      long pBlock = bits(p.words, pStart, n);
+      if (pBlock == 0) 
+        continue;
+      for (int j = 0; j < qStarts.length; j++) {
+        if (pStart + qStarts[j] >= layout.size())                            // blocks are increasing, so the rest are out of the box too
+          break;
+        if (!layout.fitsWithin(pStart, qStarts[j], above)) 
+          continue;
+        long prod = 0;
+        for (long bits = pBlock; bits != 0; bits &= bits - 1) {
+          int a = Long.numberOfTrailingZeros(bits);
+          prod ^= (qBlocks[j] & fit[a]) << a;
+        }
+        xorBits(words, pStart + qStarts[j], prod & inWindow, n);
+      }
+    }
+  }
+  /**
+   * Adds p * q to this, discarding products outside of the window w,
+   * by XORing the rows of q, shifted by each term of p.
+   * Assumes w is not empty, 
+   * and p and q have the same layout as this, and are not this.
+   * @param p
+   * @param q
+   * @param w 
+   */
+  private void convolveRows(BitTerms p, BitTerms q, DenseTerms.Layout.Window w) {
+    int radix = layout.radix(0);
+    int lo = w.lo(0);
+    int hi = w.hi(0);
+    DenseTerms.Layout.Window above = w.above(1);
+    int[] qRows = q.occupied();
+    for (int pw = 0; pw < p.words.length; pw++) {
+      for (long bits = p.words[pw]; bits != 0; bits &= bits - 1) {
+        int a    = (pw << 6) + Long.numberOfTrailingZeros(bits);
+        int a0   = a % radix;
+        int aRow = a - a0;
+        int from = Math.max(0, lo - a0);                                     // the exponents in q's rows which land in the window
+        int to   = Math.min(radix - 1, hi - a0);
+        if (from > to) 
+          continue;
+        for (int qRow : qRows) {
+          if (aRow + qRow >= layout.size())                                  // rows are increasing, so the rest are out of the box too
+            break;
+          if (!layout.fitsWithin(aRow, qRow, above)) 
+            continue;
+          xor(words, aRow + qRow + a0 + from, q.words, qRow + from, to - from + 1);
+        }
+      }
+    }
+  }
+  /**
+   * XORs the len bits of src starting at srcPos into dst starting at dstPos.
+   * @param dst
+   * @param dstPos
+   * @param src
+   * @param srcPos
+   * @param len 
+   */
+  private static void xor(long[] dst, int dstPos, long[] src, int srcPos, int len) {
+    for (; len > 0; dstPos += 64, srcPos += 64, len -= 64) {
+      int n = Math.min(64, len);
+      xorBits(dst, dstPos, bits(src, srcPos, n), n);
+    }
+  }
+  /**
+   * XORs the n low bits of x into a starting at pos.
+   * Assumes 0 < n <= 64 and the other bits of x are clear.
+   * @param a
+   * @param pos
+   * @param x
+   * @param n 
+   */
+  private static void xorBits(long[] a, int pos, long x, int n) {
+    int w = pos >>> 6;
+    int s = pos & 63;
+    a[w] ^= x << s;
+    if (s != 0 && s + n > 64)                                                // the bits straddle two words
+      a[w + 1] ^= x >>> (64 - s);
+  }
+  /**
+   * Returns the n bits of a starting at pos, in the low bits of a long.
+   * Assumes 0 < n <= 64.
+   * @param a
+   * @param pos
+   * @param n
+   * @return 
+   */
+  private static long bits(long[] a, int pos, int n) {
+    int w = pos >>> 6;
+    int s = pos & 63;
+    long x = a[w] >>> s;
+    if (s != 0 && s + n > 64) 
+      x |= a[w + 1] << (64 - s);
+    return (n == 64) ? x : x & ((1L << n) - 1);
+  }
+  
+  
+  /*
+  Nested class BitTerms.Blocks
+  */
+  
+  /**
+   * Blocks describes how a truncation box is split into blocks,
+   * and is shared by all of the ring's elements.
+   * A block is the set of monomials which differ only in the first 
+   * vars variables, where vars is as large as possible with the block
+   * fitting in a word.  If not even the first variable fits, 
+   * a block is a row of the first variable, and fit is null.
+   */
+  static final class Blocks {
+    
+    private final DenseTerms.Layout layout;
+    private final int    vars;
+    private final int    size;                                               // size is the number of indices in a block
+    private final long[] fit;                                                // fit[a] has bit b set iff the product of the monomials at offsets a and b stays in the block, or fit is null
+    
+    /**
+     * Constructs the Blocks of a ring with the given layout.
+     * @param layout 
+     */
+    Blocks(DenseTerms.Layout layout) {
+      this.layout = layout;
+      int k = 0;
+      int n = 1;
+      while (k < layout.vars() && n * layout.radix(k) <= 64) 
+        n *= layout.radix(k++);
+      if (k == 0 && layout.vars() > 0) {
+        vars = 0;
+        size = layout.radix(0);
+        fit  = null;
+        return;
+      }
+      vars = k;
+      size = n;
+      fit  = new long[n];
+      for (int a = 0; a < n; a++) {
+        for (int b = 0; b < n; b++) {
+          if (layout.fitsTogether(a, b)) 
+            fit[a] |= 1L << b;
+        }
+      }
+    }
+    
+    /**
+     * Returns the offsets in a block whose first vars exponents lie in w.
+     * @param w
+     * @return 
+     */
+    private long mask(DenseTerms.Layout.Window w) {
+      long mask = 0;
+      for (int b = 0; b < size; b++) {
+        boolean inside = true;
+        for (int i = 0; i < vars; i++) {
+          int d = layout.digit(b, i);
+          inside &= (w.lo(i) <= d && d <= w.hi(i));
+        }
+        if (inside) 
+          mask |= 1L << b;
+      }
+      return mask;
+    }
+    
+  }
+  
+}
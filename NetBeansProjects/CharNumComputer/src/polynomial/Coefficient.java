@@ -75,6 +75,21 @@ public abstract class Coefficient<C extends Coefficient<C>> {
   public C minus(C b) {
     return plus(negative(b));
   }
+  /**
+   * Returns the unique c with k * c equal to this, 
+   * and throws an ArithmeticException if there is no unique such c.
+   * Only k = 1 and k = -1 are handled unless a subclass knows better.
+   * @param k
+   * @return 
+   */
+  @SuppressWarnings("unchecked")
+  public C divide(int k) {
+    if (k == 1) 
+      return (C) this;
+    if (k == -1) 
+      return negate();
+    throw new ArithmeticException("Cannot divide " + this + " by " + k + ".");
+  }
   
   /**
    * Negates all of the values in a given Map keyed by a generic type T.
@@ -0,0 +1,717 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * DenseTerms stores terms in a flat array covering the truncation box
+ * of a PolyRing.
+ * 
+ * In a ring whose i-th variable has degree v_i and truncation t_i, 
+ * every monomial has exponents e_i = d_i / v_i with 0 <= e_i <= t_i / v_i.
+ * These exponents are the digits of a mixed-radix number, 
+ * which is the monomial's index in the array.  
+ * Multiplying monomials adds their indices, provided no digit overflows,
+ * so multiplication is a convolution over the array 
+ * which skips index pairs that leave the box.
+ * 
+ * Terms outside the box are zero in the truncated ring, 
+ * so they are silently dropped.
+ * 
+ * When both factors have many terms, a product over the whole box 
+ * is instead computed by Kronecker substitution: each digit is given
+ * room for the digit sum of a product, which turns the convolution 
+ * into a univariate one, done with Karatsuba's method.
+ * 
+ * @author William Gollinger
+ * @param <C>
+ */
+class DenseTerms<C extends Coefficient<C>> extends Terms<C> {
+  
+  /**
+   * The largest truncation box that DenseTerms will cover.
+   */
+  static final int MAX_SIZE = 1 << 14;
+  /**
+   * Below this length univariate products are computed term by term.
+   */
+  static final int KARATSUBA_THRESHOLD = 24;
+  
+  private final Layout   layout;
+  private final Object[] coeffs;                                             // coeffs[i] is the coefficient at index i, or null
+  private int size;
+  
+  /**
+   * Constructs an empty DenseTerms over the given layout.
+   * @param layout 
+   */
+  DenseTerms(Layout layout) {
+    this.layout = layout;
+    coeffs = new Object[layout.size];
+  }
+  private DenseTerms(DenseTerms<C> t) {
+    layout = t.layout;
+    coeffs = t.coeffs.clone();
+    size   = t.size;
+  }
+  
+  
+  /*
+  Implementation.
+  */
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  C get(MultiDegree d) {
+    int i = layout.index(d);
+    return (i < 0) ? null : (C) coeffs[i];
+  }
+  @Override
+  void put(MultiDegree d, C a) {
+    int i = layout.index(d);
+    if (i < 0) 
+      return;
+    if (coeffs[i] == null) 
+      size++;
+    coeffs[i] = a;
+  }
+  @Override
+  void accumulate(MultiDegree d, C a) {
+    int i = layout.index(d);
+    if (i >= 0) 
+      accumulate(i, a);
+  }
+  @Override
+  int size() {
+    return size;
+  }
+  @Override
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<MultiDegree, C> action) {
+    for (int i = 0; i < coeffs.length; i++) {
+      if (coeffs[i] != null) 
+        action.accept(layout.degree(i), (C) coeffs[i]);
+    }
+  }
+  @Override
+  DenseTerms<C> copy() {
+    return new DenseTerms<>(this);
+  }
+  @Override
+  void clear() {
+    Arrays.fill(coeffs, null);
+    size = 0;
+  }
+  /**
+   * Convolves when p and q are DenseTerms, 
+   * which is the case whenever they come from the same ring as this.
+   * @param p
+   * @param q
+   * @param truncation 
+   */
+  @Override
+  void multiplyAdd(Terms<C> p, Terms<C> q, MultiDegree lower, MultiDegree upper) {
+    if (p instanceof DenseTerms && q instanceof DenseTerms) {
+      Layout.Window w = (lower == null && upper.equals(layout.truncation)) 
+                 ? layout.full : layout.window(lower, upper);
+      if (w == layout.full && layout.prefersKronecker(p.size(), q.size())) 
+        kroneckerMultiply((DenseTerms<C>) p, (DenseTerms<C>) q);
+      else 
+        convolve((DenseTerms<C>) p, (DenseTerms<C>) q, w);
+      return;
+    }
+    super.multiplyAdd(p, q, lower, upper);
+  }
+  
+  /**
+   * Adds a to the coefficient at index i, removing it if the sum is zero.
+   * @param i
+   * @param a 
+   */
+  @SuppressWarnings("unchecked")
+  private void accumulate(int i, C a) {
+    C b = (C) coeffs[i];
+    if (b == null) {
+      coeffs[i] = a;
+      size++;
+      return;
+    }
+    C sum = b.plus(a);
+    if (sum.isZero()) {
+      coeffs[i] = null;
+      size--;
+      return;
+    }
+    coeffs[i] = sum;
+  }
+  /**
+   * Returns the indices of the terms, in increasing order.
+   * @return 
+   */
+  private int[] indices() {
+    int[] indices = new int[size];
+    int k = 0;
+    for (int i = 0; i < coeffs.length; i++) {
+      if (coeffs[i] != null) 
+        indices[k++] = i;
+    }
+    return indices;
+  }
+  
+  /**
+   * Pairs by index arithmetic when q is DenseTerms.
+   * @param q
+   * @param target
+   * @param zero
+   * @return 
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  C pair(Terms<C> q, MultiDegree target, C zero) {
+    int t = layout.index(target);
+    if (!(q instanceof DenseTerms) || t < 0) 
+      return super.pair(q, target, zero);
+    Object[] qCoeffs = ((DenseTerms<C>) q).coeffs;
+    C sum = zero;
+    for (int a = 0; a <= t; a++) {
+      if (coeffs[a] == null || !layout.divides(a, t)) 
+        continue;
+      C b = (C) qCoeffs[t - a];
+      if (b != null) 
+        sum = sum.plus(((C) coeffs[a]).times(b));
+    }
+    return sum;
+  }
+  
+  /**
+   * Adds p * q to this, discarding products which leave the truncation box.
+   * Assumes p and q have the same layout as this, and are not this.
+   * @param p
+   * @param q 
+   */
+  void convolve(DenseTerms<C> p, DenseTerms<C> q) {
+    convolve(p, q, layout.full);
+  }
+  /**
+   * Adds p * q to this, discarding products outside of the window w.
+   * Assumes p and q have the same layout as this, and are not this.
+   * @param p
+   * @param q
+   * @param w 
+   */
+  @SuppressWarnings("unchecked")
+  private void convolve(DenseTerms<C> p, DenseTerms<C> q, Layout.Window w) {
+    if (w.isEmpty) 
+      return;
+    int[] qIndices = q.indices();
+    for (int a = 0; a < p.coeffs.length; a++) {
+      C pa = (C) p.coeffs[a];
+      if (pa == null) 
+        continue;
+      for (int b : qIndices) {
+        if (a + b >= coeffs.length)                                          // indices are increasing, so the rest are out of the box too
+          break;
+        if (!layout.fitsWithin(a, b, w)) 
+          continue;
+        C prod = pa.times((C) q.coeffs[b]);
+        if (!prod.isZero()) 
+          accumulate(a + b, prod);
+      }
+    }
+  }
+  /**
+   * Adds p * q to this by Kronecker substitution, 
+   * discarding products which leave the truncation box.
+   * Assumes p and q have the same layout as this, are not this, 
+   * and are not empty.
+   * @param p
+   * @param q 
+   */
+  @SuppressWarnings("unchecked")
+  void kroneckerMultiply(DenseTerms<C> p, DenseTerms<C> q) {
+    C zero = ((C) p.coeffs[p.indices()[0]]).zero();
+    int n = layout.kroneckerLength;
+    Object[] prod = filled(2 * n - 1, zero);
+    karatsuba(p.spread(zero), 0, q.spread(zero), 0, n, prod, 0, zero);
+    for (int i = 0; i < coeffs.length; i++) {
+      C c = (C) prod[layout.kronecker[i]];
+      if (!c.isZero()) 
+        accumulate(i, c);
+    }
+  }
+  /**
+   * Returns the coefficients at their Kronecker indices, with zero elsewhere.
+   * @param zero
+   * @return 
+   */
+  private Object[] spread(C zero) {
+    Object[] spread = filled(layout.kroneckerLength, zero);
+    for (int i = 0; i < coeffs.length; i++) {
+      if (coeffs[i] != null) 
+        spread[layout.kronecker[i]] = coeffs[i];
+    }
+    return spread;
+  }
+  /**
+   * Returns an array of the given length filled with zero.
+   * @param length
+   * @param zero
+   * @return 
+   */
+  private static Object[] filled(int length, Object zero) {
+    Object[] array = new Object[length];
+    Arrays.fill(array, zero);
+    return array;
+  }
+  /**
+   * Adds the product of a[aOff, aOff + n) and b[bOff, bOff + n),
+   * viewed as univariate polynomials, to out[outOff, outOff + 2n - 1).
+   * 
+   * Splitting each factor into low and high halves, 
+   * (a0 + x^h a1)(b0 + x^h b1) is 
+   * a0 b0 + x^h ((a0 + a1)(b0 + b1) - a0 b0 - a1 b1) + x^2h a1 b1,
+   * which takes three half-size products instead of four.
+   * @param <C>
+   * @param a
+   * @param aOff
+   * @param b
+   * @param bOff
+   * @param n
+   * @param out
+   * @param outOff
+   * @param zero 
+   */
+  @SuppressWarnings("unchecked")
+  private static <C extends Coefficient<C>> void karatsuba(
+          Object[] a, int aOff, 
+          Object[] b, int bOff, 
+          int n, 
+          Object[] out, int outOff, 
+          C zero) {
+    if (n <= KARATSUBA_THRESHOLD) {
+      for (int i = 0; i < n; i++) {
+        C ai = (C) a[aOff + i];
+        if (ai.isZero()) 
+          continue;
+        for (int j = 0; j < n; j++) {
+          C bj = (C) b[bOff + j];
+          if (!bj.isZero()) 
+            out[outOff + i + j] = ((C) out[outOff + i + j]).plus(ai.times(bj));
+        }
+      }
+      return;
+    }
+    int h = n / 2;                                                           // the low halves have length h, the high halves n - h >= h
+    int m = n - h;
+    Object[] low  = filled(2 * h - 1, zero);
+    Object[] high = filled(2 * m - 1, zero);
+    Object[] mid  = filled(2 * m - 1, zero);
+    karatsuba(a, aOff, b, bOff, h, low, 0, zero);
+    karatsuba(a, aOff + h, b, bOff + h, m, high, 0, zero);
+    Object[] aSum = new Object[m];
+    Object[] bSum = new Object[m];
+    for (int i = 0; i < m; i++) {
+      aSum[i] = (i < h) ? ((C) a[aOff + i]).plus((C) a[aOff + h + i]) : a[aOff + h + i];
+      bSum[i] = (i < h) ? ((C) b[bOff + i]).plus((C) b[bOff + h + i]) : b[bOff + h + i];
+    }
+    karatsuba(aSum, 0, bSum, 0, m, mid, 0, zero);
+    for (int i = 0; i < low.length; i++) {
+      out[outOff + i] = ((C) out[outOff + i]).plus((C) low[i]);
+      mid[i] = ((C) mid[i]).minus((C) low[i]);
+    }
+    for (int i = 0; i < high.length; i++) {
+      out[outOff + 2 * h + i] = ((C) out[outOff + 2 * h + i]).plus((C) high[i]);
+      mid[i] = ((C) mid[i]).minus((C) high[i]);
+    }
+    for (int i = 0; i < mid.length; i++) 
+      out[outOff + h + i] = ((C) out[outOff + h + i]).plus((C) mid[i]);
+  }
+  
+  
+  /*
+  Nested class DenseTerms.Layout
+  */
+  
+  /**
+   * A Layout describes the truncation box of a PolyRing and its
+   * mixed-radix indexing, and is shared by all of the ring's elements.
+   */
+  static class Layout {
+    
+    private static final int MAX_KRONECKER_LENGTH = 1 << 18;
+    
+    private final MultiDegree variables;
+    private final MultiDegree truncation;
+    private final int[]  radix;                                              // radix[i] is the number of allowed exponents of variable i
+    private final int[]  stride;                                             // stride[i] is the index of the i-th variable to the first power
+    private final int    size;
+    private final long[] codes;                                              // codes[i] packs the digits of index i into guarded fields, or is null if they don't fit in a long
+    private final int[]  shift;                                              // shift[i] is the position of variable i's field in a code
+    private final long   guards;
+    private final Window full;                                               // full is the window covering the whole box
+    private final int[]  kronecker;                                          // kronecker[i] is the univariate index of index i, with room for the digit sums of products
+    private final int    kroneckerLength;                                    // the number of univariate indices up to the last monomial of the box
+    
+    /**
+     * Constructs the Layout of a ring with the given variables and truncation.
+     * Assumes isSupported(variables, truncation).
+     * @param variables
+     * @param truncation 
+     */
+    Layout(MultiDegree variables, MultiDegree truncation) {
+      this.variables  = variables;
+      this.truncation = truncation;
+      int vars = variables.vars();
+      radix  = new int[vars];
+      stride = new int[vars];
+      int n = 1;
+      for (int i = 0; i < vars; i++) {
+        radix[i]  = truncation.get(i) / variables.get(i) + 1;
+        stride[i] = n;
+        n *= radix[i];
+      }
+      size = n;
+      // Each field holds a digit sum up to 2 * (radix - 1) plus a guard bit.
+      shift = new int[vars];
+      int bits = 0;
+      long guard = 0;
+      for (int i = 0; i < vars; i++) {
+        int width = 33 - Integer.numberOfLeadingZeros(2 * (radix[i] - 1));
+        shift[i] = bits;
+        bits += width;
+        if (bits > 64) 
+          break;
+        guard |= 1L << (shift[i] + width - 1);
+      }
+      guards = guard;
+      if (bits > 64) {
+        codes = null;
+      } else {
+        codes = new long[size];
+        for (int index = 0; index < size; index++) 
+          codes[index] = code(index);
+      }
+      int[] top = new int[vars];
+      for (int i = 0; i < vars; i++) 
+        top[i] = radix[i] - 1;
+      full = new Window(new int[vars], top);
+      // Below the last variable, each digit of a product is at most 
+      // 2 * (radix - 1), so widening every radix to 2 * radix - 1 
+      // keeps the digits of products apart.
+      int[] kStride = new int[vars];
+      long k = 1;
+      long length = 1;
+      for (int i = 0; i < vars; i++) {
+        kStride[i] = (int) Math.min(k, Integer.MAX_VALUE);
+        length += (radix[i] - 1) * k;
+        k *= 2 * radix[i] - 1;
+        if (length > MAX_KRONECKER_LENGTH) 
+          break;
+      }
+      if (length > MAX_KRONECKER_LENGTH) {
+        kronecker = null;
+        kroneckerLength = 0;
+      } else {
+        kronecker = new int[size];
+        for (int index = 0; index < size; index++) {
+          for (int i = 0; i < vars; i++) 
+            kronecker[index] += digit(index, i) * kStride[i];
+        }
+        kroneckerLength = (int) length;
+      }
+    }
+    
+    /**
+     * Returns true iff a ring with the given variables and truncation 
+     * has a truncation box small enough for DenseTerms.
+     * @param variables
+     * @param truncation
+     * @return 
+     */
+    static boolean isSupported(MultiDegree variables, MultiDegree truncation) {
+      if (!truncation.isBounded()) 
+        return false;
+      long n = 1;
+      for (int i = 0; i < variables.vars(); i++) {
+        if (variables.get(i) <= 0 || truncation.get(i) < 0) 
+          return false;
+        n *= truncation.get(i) / variables.get(i) + 1;
+        if (n > MAX_SIZE) 
+          return false;
+      }
+      return true;
+    }
+    
+    /**
+     * Returns the number of indices in the box.
+     * @return 
+     */
+    int size() {
+      return size;
+    }
+    /**
+     * Returns the truncation of the ring this lays out.
+     * @return 
+     */
+    MultiDegree truncation() {
+      return truncation;
+    }
+    /**
+     * Returns the number of variables.
+     * @return 
+     */
+    int vars() {
+      return radix.length;
+    }
+    /**
+     * Returns the number of allowed exponents of variable i.
+     * @param i
+     * @return 
+     */
+    int radix(int i) {
+      return radix[i];
+    }
+    /**
+     * Returns the window covering the whole box.
+     * @return 
+     */
+    Window full() {
+      return full;
+    }
+    /**
+     * Returns true iff multiplying elements with the given numbers of 
+     * terms over the whole box should be done by Kronecker substitution.
+     * 
+     * The term by term product costs at most pSize * qSize 
+     * multiplications, and Karatsuba's method about 
+     * 3^k * KARATSUBA_THRESHOLD^2 of them where the univariate length 
+     * is 2^k times the threshold, plus the additions between levels.
+     * @param pSize
+     * @param qSize
+     * @return 
+     */
+    boolean prefersKronecker(int pSize, int qSize) {
+      if (kronecker == null || Math.min(pSize, qSize) <= KARATSUBA_THRESHOLD) 
+        return false;
+      long cost = 0;
+      long pieces = 1;
+      for (int n = kroneckerLength; ; n = (n + 1) / 2) {
+        if (n <= KARATSUBA_THRESHOLD) {
+          cost += pieces * n * n;
+          break;
+        }
+        cost += pieces * 4 * n;                                              // the sums and the recombination
+        pieces *= 3;
+      }
+      return (long) pSize * qSize > 2 * cost;
+    }
+    /**
+     * Returns the index of d, or -1 if d is not a monomial in the box.
+     * @param d
+     * @return 
+     */
+    int index(MultiDegree d) {
+      int index = 0;
+      for (int i = 0; i < radix.length; i++) {
+        int v = variables.get(i);
+        int di = d.get(i);
+        if (di < 0 || di % v != 0 || di / v >= radix[i]) 
+          return -1;
+        index += (di / v) * stride[i];
+      }
+      return index;
+    }
+    /**
+     * Returns the MultiDegree of the monomial at the given index.
+     * @param index
+     * @return 
+     */
+    MultiDegree degree(int index) {
+      int[] d = new int[radix.length];
+      for (int i = 0; i < radix.length; i++) 
+        d[i] = digit(index, i) * variables.get(i);
+      return MultiDegree.of(d);
+    }
+    /**
+     * Returns the exponent of variable i in the monomial at the given index.
+     * @param index
+     * @param i
+     * @return 
+     */
+    int digit(int index, int i) {
+      return (index / stride[i]) % radix[i];
+    }
+    /**
+     * Returns true iff the product of the monomials at indices a and b
+     * is still in the box.
+     * @param a
+     * @param b
+     * @return 
+     */
+    boolean fitsTogether(int a, int b) {
+      return fitsWithin(a, b, full);
+    }
+    /**
+     * Returns true iff the product of the monomials at indices a and b
+     * lies in the window w.
+     * @param a
+     * @param b
+     * @param w
+     * @return 
+     */
+    boolean fitsWithin(int a, int b, Window w) {
+      if (codes != null) {
+        // In each field the guard bit survives the subtraction 
+        // exactly when the subtrahend is no larger.
+        long sum = codes[a] + codes[b];
+        return (((w.hiCode | guards) - sum) & guards) == guards
+            && (((sum | guards) - w.loCode) & guards) == guards;
+      }
+      for (int i = 0; i < radix.length; i++) {
+        int d = digit(a, i) + digit(b, i);
+        if (d < w.lo[i] || d > w.hi[i]) return false;
+      }
+      return true;
+    }
+    /**
+     * Returns true iff every digit of index a is at most 
+     * the corresponding digit of index t, so that t - a is 
+     * the index of the quotient monomial.
+     * @param a
+     * @param t
+     * @return 
+     */
+    boolean divides(int a, int t) {
+      if (codes != null) 
+        return (((codes[t] | guards) - codes[a]) & guards) == guards;
+      for (int i = 0; i < radix.length; i++) 
+        if (digit(a, i) > digit(t, i)) return false;
+      return true;
+    }
+    /**
+     * Packs the given digits into guarded fields.
+     * Assumes codes fit in a long.
+     * @param digits
+     * @return 
+     */
+    private long code(int[] digits) {
+      long code = 0;
+      for (int i = 0; i < digits.length; i++) 
+        code |= ((long) digits[i]) << shift[i];
+      return code;
+    }
+    private long code(int index) {
+      long code = 0;
+      for (int i = 0; i < radix.length; i++) 
+        code |= ((long) digit(index, i)) << shift[i];
+      return code;
+    }
+    /**
+     * Returns the window of monomials d in the box with lower <= d <= upper.
+     * If lower is null there is no lower bound.
+     * @param lower
+     * @param upper
+     * @return 
+     */
+    Window window(MultiDegree lower, MultiDegree upper) {
+      int[] lo = new int[radix.length];
+      int[] hi = new int[radix.length];
+      for (int i = 0; i < radix.length; i++) {
+        int v = variables.get(i);
+        lo[i] = (lower == null) ? 0 
+                : Math.max(0, Math.floorDiv(lower.get(i) + v - 1, v));      // round up to a multiple of v
+        hi[i] = Math.min(radix[i] - 1, Math.floorDiv(upper.get(i), v));
+      }
+      return new Window(lo, hi);
+    }
+    
+    /**
+     * A Window is a sub-box of the truncation box, given by 
+     * lower and upper bounds on each digit.
+     */
+    class Window {
+      
+      private final int[]   lo;
+      private final int[]   hi;
+      private final long    loCode;
+      private final long    hiCode;
+      private final boolean isEmpty;
+      
+      private Window(int[] lo, int[] hi) {
+        this.lo = lo;
+        this.hi = hi;
+        boolean empty = false;
+        for (int i = 0; i < lo.length; i++) 
+          empty |= (lo[i] > hi[i]);
+        isEmpty = empty;
+        loCode  = (codes == null || empty) ? 0 : code(lo);
+        hiCode  = (codes == null || empty) ? 0 : code(hi);
+      }
+      
+      /**
+       * Returns true iff the window contains no monomials.
+       * @return 
+       */
+      boolean isEmpty() {
+        return isEmpty;
+      }
+      /**
+       * Returns the least allowed exponent of variable i.
+       * @param i
+       * @return 
+       */
+      int lo(int i) {
+        return lo[i];
+      }
+      /**
+       * Returns the greatest allowed exponent of variable i.
+       * @param i
+       * @return 
+       */
+      int hi(int i) {
+        return hi[i];
+      }
+      /**
+       * Returns the window with the same bounds on variables k and up,
+       * in which the first k variables may take any exponent in the box.
+       * @param k
+       * @return 
+       */
+      Window above(int k) {
+        int[] aboveLo = lo.clone();
+        int[] aboveHi = hi.clone();
+        for (int i = 0; i < k; i++) {
+          aboveLo[i] = 0;
+          aboveHi[i] = radix[i] - 1;
+        }
+        return new Window(aboveLo, aboveHi);
+      }
+      
+    }
+    
+  }
+  
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * HashTerms stores terms in a HashMap keyed by MultiDegree.
+ * It places no restriction on the MultiDegrees it holds.
+ * @author William Gollinger
+ * @param <C>
+ */
+class HashTerms<C extends Coefficient<C>> extends Terms<C> {
+  
+  private final Map<MultiDegree, C> map;
+  
+  /**
+   * Constructs an empty HashTerms.
+   */
+  HashTerms() {
+    this(new HashMap<>());
+  }
+  private HashTerms(Map<MultiDegree, C> map) {
+    this.map = map;
+  }
+  
+  
+  /*
+  Implementation.
+  */
+  
+  @Override
+  C get(MultiDegree d) {
+    return map.get(d);
+  }
+  @Override
+  void put(MultiDegree d, C a) {
+    map.put(d, a);
+  }
+  @Override
+  void accumulate(MultiDegree d, C a) {
+    C b = map.get(d);
+    if (b == null) {
+      map.put(d, a);
+      return;
+    }
+    C sum = a.plus(b);
+    if (sum.isZero()) {
+      map.remove(d);
+      return;
+    }
+    map.put(d, sum);
+  }
+  @Override
+  int size() {
+    return map.size();
+  }
+  @Override
+  void forEach(BiConsumer<MultiDegree, C> action) {
+    map.forEach(action);
+  }
+  @Override
+  HashTerms<C> copy() {
+    return new HashTerms<>(new HashMap<>(map));
+  }
+  @Override
+  void clear() {
+    map.clear();
+  }
+  
+}
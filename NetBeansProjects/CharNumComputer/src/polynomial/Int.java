@@ -25,6 +25,10 @@ package polynomial;
 
 /**
  * Int is a Coefficient wrapper around int.
+ * 
+ * The values in [-128, 128) are cached, like Integer.valueOf: 
+ * valueOf, zero, one and the arithmetic methods return the cached 
+ * instance rather than allocating a new one.
  * @author William Gollinger
  */
 public class Int extends Coefficient<Int> {
@@ -34,6 +38,13 @@ public class Int extends Coefficient<Int> {
    */
   public static Int ring = new Int();
   
+  private static final Int[] SMALL = new Int[256];                           // SMALL[i] has value i - 128
+  static {
+    for (int i = 0; i < SMALL.length; i++) {
+      SMALL[i] = new Int(i - 128);
+    }
+  }
+  
   private final int value;
   
   
@@ -57,6 +68,19 @@ public class Int extends Coefficient<Int> {
   }
   
   
+  /**
+   * Returns an Int with the given value, 
+   * which is a cached instance if the value is small.
+   * @param value
+   * @return 
+   */
+  public static Int valueOf(int value) {
+    if (-128 <= value && value < 128)
+      return SMALL[value + 128];
+    return new Int(value);
+  }
+  
+  
   /*
   Utitliy methods.
   */
@@ -75,7 +99,7 @@ public class Int extends Coefficient<Int> {
   public Int mod(Int b) {
     if (b.value == 0) 
       throw new IllegalArgumentException();
-    return new Int(value % b.value);
+    return valueOf(value % b.value);
   }
   
   /*
@@ -127,7 +151,7 @@ public class Int extends Coefficient<Int> {
    */
   @Override
   public Int intToCoefficient(int a) {
-    return new Int(a);
+    return valueOf(a);
   }
   /**
    * Returns an Int equal to 0.
@@ -135,7 +159,7 @@ public class Int extends Coefficient<Int> {
    */
   @Override
   public Int zero() {
-    return new Int(0);
+    return SMALL[128];
   }
   /**
    * Returns and Int equal to 1.
@@ -143,7 +167,7 @@ public class Int extends Coefficient<Int> {
    */
   @Override
   public Int one() {
-    return new Int(1);
+    return SMALL[129];
   }
   /**
    * Returns an Int equal to the sum of this and b.
@@ -152,7 +176,7 @@ public class Int extends Coefficient<Int> {
    */
   @Override
   public Int plus(Int b) {
-    return new Int(value + b.value);
+    return valueOf(value + b.value);
   }
   /**
    * Returns an Int equal to the product of this and b.
@@ -161,7 +185,7 @@ public class Int extends Coefficient<Int> {
    */
   @Override
   public Int times(Int b) {
-    return new Int(value * b.value);
+    return valueOf(value * b.value);
   }
   /**
    * Returns an Int with the negative value.
@@ -170,6 +194,17 @@ public class Int extends Coefficient<Int> {
    */
   @Override
   public Int negative(Int b) {
-    return new Int(- b.value);
+    return valueOf(- b.value);
+  }
+  /**
+   * Returns this / k, if k divides this exactly.
+   * @param k
+   * @return 
+   */
+  @Override
+  public Int divide(int k) {
+    if (k == 0 || value % k != 0) 
+      throw new ArithmeticException(k + " does not divide " + this + ".");
+    return valueOf(value / k);
   }
 }
@@ -25,6 +25,9 @@ package polynomial;
 
 /**
  * IntMod2 is a Coefficient representation of Z/2. 
+ * 
+ * There are two canonical instances, and valueOf, zero, one and 
+ * the arithmetic methods return them rather than allocating.
  * @author William Gollinger
  */
 public class IntMod2 extends Coefficient<IntMod2> {
@@ -34,6 +37,9 @@ public class IntMod2 extends Coefficient<IntMod2> {
    */
   public static IntMod2 ring = new IntMod2();
   
+  private static final IntMod2 ZERO = new IntMod2(false);
+  private static final IntMod2 ONE  = new IntMod2(true);
+  
   private final boolean value;
   
   
@@ -47,13 +53,13 @@ public class IntMod2 extends Coefficient<IntMod2> {
    */
   public IntMod2(int intValue) {
     super(ring);
-    this.value = (intValue % 2 == 1);
+    this.value = ((intValue & 1) == 1);                                      // unlike %, correct for negative values
   }
   public IntMod2(Int intValue) {
     this(intValue.value());
   }
   public IntMod2(BigInt bigIntValue) {
-    this(bigIntValue.value().intValue());
+    this(bigIntValue.value().testBit(0));
   }
   /**
    * Constructs an IntMod2 with the given boolean.
@@ -71,6 +77,32 @@ public class IntMod2 extends Coefficient<IntMod2> {
   }
   
   
+  /**
+   * Returns the canonical IntMod2 with the given boolean value.
+   * @param value
+   * @return 
+   */
+  public static IntMod2 valueOf(boolean value) {
+    return value ? ONE : ZERO;
+  }
+  /**
+   * Returns the canonical IntMod2 with the mod-2 residue of the value.
+   * @param intValue
+   * @return 
+   */
+  public static IntMod2 valueOf(int intValue) {
+    return valueOf((intValue & 1) == 1);
+  }
+  /**
+   * Returns the canonical IntMod2 with the mod-2 residue of the value.
+   * @param bigIntValue
+   * @return 
+   */
+  public static IntMod2 valueOf(BigInt bigIntValue) {
+    return valueOf(bigIntValue.value().testBit(0));
+  }
+  
+  
   /**
    * Returns the int value of IntMod2.
    * @return 
@@ -127,7 +159,7 @@ public class IntMod2 extends Coefficient<IntMod2> {
    */
   @Override
   public IntMod2 intToCoefficient(int a) {
-    return new IntMod2(a);
+    return valueOf(a);
   }
   /**
    * Returns an IntMod2 equal to 0.
@@ -135,7 +167,7 @@ public class IntMod2 extends Coefficient<IntMod2> {
    */
   @Override
   public IntMod2 zero() {
-    return new IntMod2(0);
+    return ZERO;
   }
   /**
    * Returns an IntMod2 equal to 1.
@@ -143,11 +175,11 @@ public class IntMod2 extends Coefficient<IntMod2> {
    */
   @Override
   public IntMod2 one() {
-    return new IntMod2(1);
+    return ONE;
   }
   @Override
   public IntMod2 plus(IntMod2 b) {
-    return new IntMod2((value != b.value));
+    return valueOf(value != b.value);
   }
   /**
    * Returns an IntMod2 equals to the sum of this with b.
@@ -156,7 +188,7 @@ public class IntMod2 extends Coefficient<IntMod2> {
    */
   @Override
   public IntMod2 times(IntMod2 b) {
-    return new IntMod2(value && b.value);
+    return valueOf(value && b.value);
   }
   /**
    * -1 = 1  mod 2, so negative returns b.
@@ -167,5 +199,17 @@ public class IntMod2 extends Coefficient<IntMod2> {
   public IntMod2 negative(IntMod2 b) {
     return b;
   }
+  /**
+   * Dividing by an odd k does nothing, and dividing by an even k 
+   * throws an ArithmeticException.
+   * @param k
+   * @return 
+   */
+  @Override
+  public IntMod2 divide(int k) {
+    if (k % 2 == 0) 
+      throw new ArithmeticException("Cannot divide by " + k + " mod 2.");
+    return this;
+  }
   
 }
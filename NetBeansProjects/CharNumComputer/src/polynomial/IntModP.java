@@ -0,0 +1,343 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IntModP is a Coefficient for the integers modulo an odd prime p < 2^31.
+ * 
+ * Values are held as longs in Montgomery form: the residue a is stored 
+ * as a * 2^32 mod p.  A product of two stored values is less than 2^62, 
+ * and is reduced back into [0, p) with multiplications, a shift and 
+ * at most one subtraction, so no operation divides.
+ * 
+ * Each prime has its own ring instance, obtained from ring(p).
+ * Computing modulo several primes and combining the results with crt 
+ * recovers integers whose size is known in advance without 
+ * any BigInteger arithmetic along the way.
+ * @author William Gollinger
+ */
+public class IntModP extends Coefficient<IntModP> {
+  
+  private static final long MASK = 0xFFFFFFFFL;                              // the low 32 bits, so R = 2^32 is the Montgomery radix
+  private static final Map<Long, Modulus> MODULI = new ConcurrentHashMap<>();
+  private static final List<Long> PRIMES = new ArrayList<>();                // PRIMES.get(i) is the i-th largest prime below 2^31
+  
+  private final Modulus modulus;
+  private final long    value;                                               // the residue times 2^32, mod p
+  
+  
+  /*
+  Constructors.
+  */
+  
+  /**
+   * Constructs the IntModP with the given stored value.
+   * @param modulus
+   * @param value 
+   */
+  private IntModP(Modulus modulus, long value) {
+    super(null);
+    this.modulus = modulus;
+    this.value   = value;
+  }
+  
+  /**
+   * Returns the ring of integers modulo p, as its 0.
+   * Throws IllegalArgumentException unless p is an odd prime less than 2^31.
+   * @param p
+   * @return 
+   */
+  public static IntModP ring(long p) {
+    Modulus m = MODULI.get(p);
+    if (m == null) {
+      if (p < 3 || p > Integer.MAX_VALUE || !isPrime(p)) 
+        throw new IllegalArgumentException(p + " is not an odd prime below 2^31.");
+      m = MODULI.computeIfAbsent(p, Modulus::new);
+    }
+    return m.zero;
+  }
+  /**
+   * Returns the i-th largest prime below 2^31, starting from i = 0.
+   * @param i
+   * @return 
+   */
+  public static long prime(int i) {
+    synchronized (PRIMES) {
+      long p = PRIMES.isEmpty() ? Integer.MAX_VALUE + 1L : PRIMES.get(PRIMES.size() - 1);
+      while (PRIMES.size() <= i) {
+        do {
+          p--;
+        } while (!isPrime(p));
+        PRIMES.add(p);
+      }
+      return PRIMES.get(i);
+    }
+  }
+  /**
+   * Returns true iff n is prime, by trial division.
+   * @param n
+   * @return 
+   */
+  private static boolean isPrime(long n) {
+    if (n < 2) 
+      return false;
+    if (n % 2 == 0) 
+      return n == 2;
+    for (long d = 3; d * d <= n; d += 2) 
+      if (n % d == 0) return false;
+    return true;
+  }
+  
+  
+  /*
+  Methods specific to IntModP.
+  */
+  
+  /**
+   * Returns the residue of a in this ring.
+   * @param a
+   * @return 
+   */
+  public IntModP valueOf(long a) {
+    return modulus.make(modulus.toMontgomery(Math.floorMod(a, modulus.p)));
+  }
+  /**
+   * Returns the residue of a in this ring.
+   * @param a
+   * @return 
+   */
+  public IntModP valueOf(BigInteger a) {
+    return valueOf(a.mod(BigInteger.valueOf(modulus.p)).longValue());
+  }
+  /**
+   * Returns the residue in [0, p).
+   * @return 
+   */
+  public long value() {
+    return modulus.reduce(value);
+  }
+  /**
+   * Returns p.
+   * @return 
+   */
+  public long modulus() {
+    return modulus.p;
+  }
+  /**
+   * Returns the multiplicative inverse.
+   * Throws ArithmeticException if this is zero.
+   * @return 
+   */
+  public IntModP inverse() {
+    if (isZero()) 
+      throw new ArithmeticException("0 is not invertible.");
+    IntModP result = one();
+    IntModP square = this;
+    for (long e = modulus.p - 2; e > 0; e >>= 1) {                           // a^(p - 2) = a^(-1) by Fermat's little theorem
+      if ((e & 1) == 1) 
+        result = result.times(square);
+      square = square.times(square);
+    }
+    return result;
+  }
+  /**
+   * Returns the integer x with -M/2 < x <= M/2 which is congruent to
+   * each of the residues, where M is the product of their moduli.
+   * Assumes the moduli are distinct.
+   * @param residues
+   * @return 
+   */
+  public static BigInteger crt(List<IntModP> residues) {
+    BigInteger x = BigInteger.ZERO;
+    BigInteger m = BigInteger.ONE;
+    for (IntModP r : residues) {
+      // Choose t with x + m * t congruent to r, so that x keeps its 
+      // residues modulo the earlier primes.
+      BigInteger p = BigInteger.valueOf(r.modulus.p);
+      IntModP t = r.minus(r.valueOf(x.mod(p).longValue()))
+                   .times(r.valueOf(m.mod(p).longValue()).inverse());
+      x = x.add(m.multiply(BigInteger.valueOf(t.value())));
+      m = m.multiply(p);
+    }
+    if (x.shiftLeft(1).compareTo(m) > 0) 
+      x = x.subtract(m);
+    return x;
+  }
+  
+  
+  /*
+  Implementation
+  */
+  
+  /**
+   * Two IntModPs are equal iff they have the same modulus 
+   * and the same residue.
+   * @param o
+   * @return 
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof IntModP)) 
+      return false;
+    IntModP b = (IntModP)o;
+    return modulus.p == b.modulus.p && value == b.value;
+  }
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(modulus.p) + Long.hashCode(value);
+  }
+  @Override
+  public String toString() {
+    return Long.toString(value());
+  }
+  @Override
+  public boolean isZero() {
+    return value == 0;
+  }
+  @Override
+  public boolean isOne() {
+    return value == modulus.one.value;
+  }
+  /**
+   * Converts an int to its residue.
+   * @param a
+   * @return 
+   */
+  @Override
+  public IntModP intToCoefficient(int a) {
+    return valueOf(a);
+  }
+  @Override
+  public IntModP zero() {
+    return modulus.zero;
+  }
+  @Override
+  public IntModP one() {
+    return modulus.one;
+  }
+  /**
+   * Returns the sum of this with b.
+   * Assumes b has the same modulus.
+   * @param b
+   * @return 
+   */
+  @Override
+  public IntModP plus(IntModP b) {
+    long sum = value + b.value;
+    return modulus.make((sum >= modulus.p) ? sum - modulus.p : sum);
+  }
+  /**
+   * Returns the product of this with b.
+   * Assumes b has the same modulus.
+   * @param b
+   * @return 
+   */
+  @Override
+  public IntModP times(IntModP b) {
+    return modulus.make(modulus.reduce(value * b.value));
+  }
+  @Override
+  public IntModP negative(IntModP b) {
+    return modulus.make((b.value == 0) ? 0 : modulus.p - b.value);
+  }
+  /**
+   * Returns this times the inverse of k, 
+   * throwing an ArithmeticException if p divides k.
+   * @param k
+   * @return 
+   */
+  @Override
+  public IntModP divide(int k) {
+    return times(valueOf(k).inverse());
+  }
+  
+  
+  /*
+  Nested class IntModP.Modulus
+  */
+  
+  /**
+   * A Modulus holds a prime p and the constants used to reduce modulo p,
+   * and is shared by all IntModPs with that modulus.
+   */
+  private static final class Modulus {
+    
+    private final long    p;
+    private final long    pInv;                                              // pInv is -1/p mod 2^32
+    private final long    r2;                                                // r2 is 2^64 mod p
+    private final IntModP zero;
+    private final IntModP one;
+    
+    private Modulus(long p) {
+      this.p = p;
+      long inv = p;                                                          // p is its own inverse mod 8, and each step doubles the correct bits
+      for (int i = 0; i < 4; i++) 
+        inv = (inv * (2 - p * inv)) & MASK;
+      pInv = (-inv) & MASK;
+      r2   = BigInteger.ONE.shiftLeft(64).mod(BigInteger.valueOf(p)).longValue();
+      zero = new IntModP(this, 0);
+      one  = new IntModP(this, (1L << 32) % p);
+    }
+    
+    /**
+     * Returns x / 2^32 mod p, in [0, p).
+     * Assumes 0 <= x < p * 2^32.
+     * @param x
+     * @return 
+     */
+    private long reduce(long x) {
+      long t = ((x & MASK) * pInv) & MASK;                                   // x + t * p is divisible by 2^32
+      long u = (x + t * p) >>> 32;                                           // x + t * p < 2^64, so an unsigned shift is exact
+      return (u >= p) ? u - p : u;
+    }
+    /**
+     * Returns a * 2^32 mod p.
+     * Assumes 0 <= a < p.
+     * @param a
+     * @return 
+     */
+    private long toMontgomery(long a) {
+      return reduce(a * r2);
+    }
+    /**
+     * Returns the IntModP with the given stored value, 
+     * which is a cached instance for 0 and 1.
+     * @param value
+     * @return 
+     */
+    private IntModP make(long value) {
+      if (value == 0) 
+        return zero;
+      if (value == one.value) 
+        return one;
+      return new IntModP(this, value);
+    }
+    
+  }
+  
+}
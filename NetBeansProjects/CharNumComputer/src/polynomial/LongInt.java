@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.math.BigInteger;
+
+/**
+ * LongInt is a Coefficient for integers of any size, 
+ * which uses long arithmetic while the values fit in a long.
+ * 
+ * Every operation checks for overflow, and a result which does not fit
+ * in a long is held as a BigInteger instead; a BigInteger result 
+ * which fits is held as a long again.  So a LongInt always agrees with 
+ * the corresponding BigInt, and only pays for BigInteger arithmetic 
+ * on values which need it.
+ * 
+ * The values in [-128, 128) are cached, like Integer.valueOf: 
+ * valueOf, zero, one and the arithmetic methods return the cached 
+ * instance rather than allocating a new one.
+ * @author William Gollinger
+ */
+public class LongInt extends Coefficient<LongInt> {
+  
+  /**
+   * A static instance of LongInt.
+   */
+  public static LongInt ring = new LongInt();
+  
+  private static final long      HALF  = 1L << 31;                         // products of numbers in [-HALF, HALF) cannot overflow
+  private static final LongInt[] SMALL = new LongInt[256];                   // SMALL[i] has value i - 128
+  static {
+    for (int i = 0; i < SMALL.length; i++) {
+      SMALL[i] = new LongInt(i - 128);
+    }
+  }
+  
+  private final long       value;                                            // the value, if big is null
+  private final BigInteger big;                                              // the value, if it does not fit in a long
+  
+  
+  /*
+  Constructors.
+  */
+  
+  /**
+   * The default LongInt has value 0.
+   */
+  protected LongInt() {
+    this(0L);
+  }
+  /**
+   * Constructs a LongInt with the given value.
+   * @param value 
+   */
+  public LongInt(long value) {
+    super(ring);
+    this.value = value;
+    this.big   = null;
+  }
+  /**
+   * Constructs a LongInt with the given BigInteger value.
+   * @param value 
+   */
+  public LongInt(BigInteger value) {
+    super(ring);
+    if (value.bitLength() < 64) {
+      this.value = value.longValue();
+      this.big   = null;
+    } else {
+      this.value = 0;
+      this.big   = value;
+    }
+  }
+  /**
+   * Constructs a LongInt with the value of a BigInt.
+   * @param b 
+   */
+  public LongInt(BigInt b) {
+    this(b.value());
+  }
+  
+  
+  /**
+   * Returns a LongInt with the given value, 
+   * which is a cached instance if the value is small.
+   * @param value
+   * @return 
+   */
+  public static LongInt valueOf(long value) {
+    if (-128 <= value && value < 128)
+      return SMALL[(int) value + 128];
+    return new LongInt(value);
+  }
+  /**
+   * Returns a LongInt with the given value, 
+   * which is a cached instance if the value is small.
+   * @param value
+   * @return 
+   */
+  public static LongInt valueOf(BigInteger value) {
+    if (value.bitLength() < 8)
+      return SMALL[value.intValue() + 128];
+    return new LongInt(value);
+  }
+  
+  
+  /*
+  Methods specific to LongInt.
+  */
+  
+  /**
+   * Returns the BigInteger value.
+   * @return 
+   */
+  public BigInteger value() {
+    return (big == null) ? BigInteger.valueOf(value) : big;
+  }
+  /**
+   * Returns the value as a BigInt.
+   * @return 
+   */
+  public BigInt toBigInt() {
+    return (big == null) ? BigInt.valueOf(value) : BigInt.valueOf(big);
+  }
+  /**
+   * Returns true iff the value fits in a long.
+   * @return 
+   */
+  public boolean isLong() {
+    return big == null;
+  }
+  /**
+   * Returns the (possibly truncated) long value.
+   * @return 
+   */
+  public long longValue() {
+    return (big == null) ? value : big.longValue();
+  }
+  /**
+   * Returns the (possibly truncated) int value.
+   * @return 
+   */
+  public int intValue() {
+    return (int) longValue();
+  }
+  
+  
+  /*
+  Implementation
+  */
+  
+  /**
+   * Two LongInts are equal iff their values are equal.
+   * @param o
+   * @return 
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof LongInt)) 
+      return false;
+    LongInt b = (LongInt)o;
+    return (big == null) ? (b.big == null && value == b.value) : big.equals(b.big);
+  }
+  @Override
+  public int hashCode() {
+    return (big == null) ? Long.hashCode(value) : big.hashCode();
+  }
+  @Override
+  public String toString() {
+    return (big == null) ? Long.toString(value) : big.toString();
+  }
+  /**
+   * A LongInt is zero iff its value is 0.
+   * @return 
+   */
+  @Override
+  public boolean isZero() {
+    return big == null && value == 0;
+  }
+  /**
+   * A LongInt is one iff its value is 1.
+   * @return 
+   */
+  @Override
+  public boolean isOne() {
+    return big == null && value == 1;
+  }
+  /**
+   * Converts an int to a LongInt.
+   * @param a
+   * @return 
+   */
+  @Override
+  public LongInt intToCoefficient(int a) {
+    return valueOf(a);
+  }
+  /**
+   * Returns a LongInt equal to 0.
+   * @return 
+   */
+  @Override
+  public LongInt zero() {
+    return SMALL[128];
+  }
+  /**
+   * Returns a LongInt equal to 1.
+   * @return 
+   */
+  @Override
+  public LongInt one() {
+    return SMALL[129];
+  }
+  /**
+   * Returns a new LongInt which is the sum of this with b.
+   * @param b
+   * @return 
+   */
+  @Override
+  public LongInt plus(LongInt b) {
+    if (big == null && b.big == null) {
+      long sum = value + b.value;
+      if (((value ^ sum) & (b.value ^ sum)) >= 0)                            // the sign only flips if the sum overflowed
+        return valueOf(sum);
+    }
+    return valueOf(value().add(b.value()));
+  }
+  /**
+   * Returns a new LongInt which is the product of this with b.
+   * @param b
+   * @return 
+   */
+  @Override
+  public LongInt times(LongInt b) {
+    if (big == null && b.big == null) {
+      if (((value + HALF) | (b.value + HALF)) >>> 32 == 0)                   // both are in [-2^31, 2^31)
+        return valueOf(value * b.value);
+      try {
+        return valueOf(Math.multiplyExact(value, b.value));
+      } catch (ArithmeticException e) {
+        // the product needs a BigInteger
+      }
+    }
+    return valueOf(value().multiply(b.value()));
+  }
+  /**
+   * Returns a LongInt with the negative value.
+   * @param b
+   * @return 
+   */
+  @Override
+  public LongInt negative(LongInt b) {
+    if (b.big == null && b.value != Long.MIN_VALUE) 
+      return valueOf(-b.value);
+    return valueOf(b.value().negate());
+  }
+  /**
+   * Returns this / k, if k divides this exactly.
+   * @param k
+   * @return 
+   */
+  @Override
+  public LongInt divide(int k) {
+    if (big == null && k != 0 && k != -1) {
+      if (value % k != 0) 
+        throw new ArithmeticException(k + " does not divide " + this + ".");
+      return valueOf(value / k);
+    }
+    BigInteger[] qr = value().divideAndRemainder(BigInteger.valueOf(k));
+    if (qr[1].signum() != 0) 
+      throw new ArithmeticException(k + " does not divide " + this + ".");
+    return valueOf(qr[0]);
+  }
+}
@@ -28,11 +28,23 @@ import java.util.*;
 /**
  * A MultiDegree represents a tuple of exponents for a fixed number of variables.
  * They are constructed by a static nested Builder class.
+ * 
+ * When every exponent is non-negative and small enough, the exponents are
+ * bit-packed into one or two longs instead of being stored in an array.
+ * Each variable gets a fixed-width field whose top bit is a guard bit,
+ * so entry-wise addition is a single word add and exceeds is a masked compare.
+ * Whether a MultiDegree is packed depends only on its entries,
+ * so two equal MultiDegrees always have the same representation.
  * @author William Gollinger
  */
 public class MultiDegree {
   
-  private final List<Integer> degrees;
+  static final int MAX_PACKED_VARS = 16;                                     // MultiDegrees with more variables always use an int array
+  
+  private final int[] degrees;                                               // degrees is null when the entries are packed into lo and hi
+  private final long lo;
+  private final long hi;
+  private final int vars;
   private final int total;                                                   // total is the sum of the degrees
   private final int hashCode;                                                // hashCode is memoized to save a bit of lookup time
   private final boolean isZero;
@@ -42,31 +54,149 @@ public class MultiDegree {
    * Produces a MultiDegree with the given degrees.
    * Constructor is private so they can only be made by a Builder 
    * or with static methods.
+   * Assumes the degrees cannot be packed, and that nothing else 
+   * holds a reference to the array.
    * @param degrees 
    */
-  private MultiDegree(List<Integer> degrees) {
-    this.degrees = new ArrayList<>(degrees);
-    total        = this.degrees.stream().mapToInt(Integer::intValue).sum();
-    hashCode     = this.degrees.hashCode();
-    isZero       = !this.degrees.stream().filter(i -> (i != 0))
-                                        .findAny().isPresent();
-    isBounded    = !this.degrees.stream().filter(i -> (i == Integer.MAX_VALUE))
-                                        .findAny().isPresent();
+  private MultiDegree(int[] degrees) {
+    this.degrees = degrees;
+    lo           = 0;
+    hi           = 0;
+    vars         = degrees.length;
+    int sum      = 0;
+    boolean zero = true;
+    boolean bounded = true;
+    for (int d : degrees) {
+      sum += d;
+      zero    &= (d == 0);
+      bounded &= (d != Integer.MAX_VALUE);
+    }
+    total     = sum;
+    isZero    = zero;
+    isBounded = bounded;
+    hashCode  = Arrays.hashCode(degrees);
+  }
+  /**
+   * Produces a packed MultiDegree with vars variables.
+   * Assumes lo and hi are a valid packing with clear guard bits.
+   * @param vars
+   * @param lo
+   * @param hi
+   * @param total 
+   */
+  private MultiDegree(int vars, long lo, long hi, int total) {
+    this.degrees = null;
+    this.lo      = lo;
+    this.hi      = hi;
+    this.vars    = vars;
+    this.total   = total;
+    isZero       = (lo == 0 && hi == 0);
+    boolean bounded = true;
+    if (WIDTH[vars] == 32) {                                                 // only 32-bit fields are wide enough to hold Integer.MAX_VALUE
+      for (int i = 0; i < vars; i++) 
+        bounded &= (field(i) != Integer.MAX_VALUE);
+    }
+    isBounded    = bounded;
+    hashCode     = Long.hashCode(lo * 31 + hi) ^ vars;
+  }
+  /**
+   * Returns a MultiDegree with the given degrees, packing them if possible.
+   * Takes ownership of the array.
+   * @param degrees
+   * @return 
+   */
+  static MultiDegree of(int[] degrees) {
+    int n = degrees.length;
+    if (n > MAX_PACKED_VARS) 
+      return new MultiDegree(degrees);
+    int width = WIDTH[n];
+    int perWord = PER_WORD[n];
+    long[] words = new long[2];
+    int sum = 0;
+    for (int i = 0; i < n; i++) {
+      int d = degrees[i];
+      if (d < 0 || (width < 32 && d >= (1 << (width - 1))))                  // the value would reach the guard bit
+        return new MultiDegree(degrees);
+      words[i / perWord] |= ((long) d) << ((i % perWord) * width);
+      sum += d;
+    }
+    return new MultiDegree(n, words[0], words[1], sum);
+  }
+  
+  
+  /*
+  Packing layout.
+  */
+  
+  private static final int[]  WIDTH    = new int[MAX_PACKED_VARS + 1];       // WIDTH[n] is the number of bits per field for n variables
+  private static final int[]  PER_WORD = new int[MAX_PACKED_VARS + 1];       // PER_WORD[n] is the number of fields in each long
+  private static final long[] GUARD_LO = new long[MAX_PACKED_VARS + 1];      // GUARD_LO[n] has the guard bit of every field of lo set
+  private static final long[] GUARD_HI = new long[MAX_PACKED_VARS + 1];
+  static {
+    for (int n = 0; n <= MAX_PACKED_VARS; n++) {
+      int perWord = (n <= 8) ? Math.max(n, 1) : (n + 1) / 2;
+      int width = Math.min(32, 64 / perWord);
+      WIDTH[n] = width;
+      PER_WORD[n] = perWord;
+      for (int i = 0; i < n; i++) {
+        long guard = 1L << ((i % perWord) * width + width - 1);
+        if (i < perWord) GUARD_LO[n] |= guard;
+        else             GUARD_HI[n] |= guard;
+      }
+    }
+  }
+  
+  /**
+   * Returns true iff the entries are bit-packed.
+   * @return 
+   */
+  boolean isPacked() {
+    return degrees == null;
+  }
+  /**
+   * Reads the i-th field of a packed MultiDegree.
+   * @param i
+   * @return 
+   */
+  private int field(int i) {
+    int perWord = PER_WORD[vars];
+    int width = WIDTH[vars];
+    long word = (i < perWord) ? lo : hi;
+    return (int) ((word >>> ((i % perWord) * width)) & ((1L << width) - 1));
+  }
+  /**
+   * Returns a fresh array containing the degrees.
+   * @return 
+   */
+  private int[] toArray() {
+    if (degrees != null) 
+      return degrees.clone();
+    int[] a = new int[vars];
+    for (int i = 0; i < vars; i++) 
+      a[i] = field(i);
+    return a;
   }
   
+  
   /*
   Utility methods.
   */
   @Override
   public String toString() {
-    if (degrees.isEmpty())
+    if (vars == 0)
       return "";
-    return degrees.toString();
+    return Arrays.toString(toArray());
   }
   @Override
   public boolean equals(Object o) {
-    return (o instanceof MultiDegree 
-            && ((MultiDegree)o).degrees.equals(degrees));
+    if (!(o instanceof MultiDegree)) 
+      return false;
+    MultiDegree d = (MultiDegree) o;
+    if (d.vars != vars || d.hashCode != hashCode) 
+      return false;
+    if (degrees == null) 
+      return (d.degrees == null && d.lo == lo && d.hi == hi);
+    return Arrays.equals(degrees, d.degrees);
   }
   @Override
   public int hashCode() {
@@ -77,7 +207,8 @@ public class MultiDegree {
    * @return 
    */
   public MultiDegree copy() {
-    return new MultiDegree(this.degrees);
+    return (degrees == null) ? new MultiDegree(vars, lo, hi, total) 
+                             : new MultiDegree(degrees.clone());
   }
   /**
    * Returns true iff all entries are zero.
@@ -105,17 +236,17 @@ public class MultiDegree {
    * @return 
    */
   public int get(int i) {
-    if (i < 0 || i > degrees.size()) {
+    if (i < 0 || i >= vars) {
       throw new IllegalArgumentException();
     }
-    return degrees.get(i);
+    return (degrees == null) ? field(i) : degrees[i];
   }
   /**
    * Returns the number of variables.
    * @return 
    */
   public int vars() {
-    return degrees.size();
+    return vars;
   }
   /**
    * Returns the sum of the degrees.
@@ -132,14 +263,22 @@ public class MultiDegree {
  
   /**
    * Compares MultiDegrees d and e of the same length.  Returns true if 
-   * d is strictly less than e entry-wise.
+   * some entry of d is strictly greater than the corresponding entry of e.
    * @param trunc
    * @return 
    */
   public boolean exceeds(MultiDegree trunc) {
-    if (this.degrees.size() != trunc.degrees.size()) throw new IllegalArgumentException();
-    for (int i = 0; i < this.degrees.size(); i++) 
-      if (this.degrees.get(i) > trunc.degrees.get(i)) return true;
+    if (vars != trunc.vars) throw new IllegalArgumentException();
+    if (degrees == null && trunc.degrees == null) {
+      // Setting the guard bits of trunc and subtracting leaves a field's
+      // guard bit set exactly when that field of trunc is at least this one.
+      long gLo = GUARD_LO[vars];
+      long gHi = GUARD_HI[vars];
+      return (((trunc.lo | gLo) - lo) & gLo) != gLo 
+          || (((trunc.hi | gHi) - hi) & gHi) != gHi;
+    }
+    for (int i = 0; i < vars; i++) 
+      if (get(i) > trunc.get(i)) return true;
     return false;
   }
   /**
@@ -149,12 +288,35 @@ public class MultiDegree {
    * @return 
    */
   public boolean divides(MultiDegree d) {
-    if (this.degrees.size() != d.degrees.size()) throw new IllegalArgumentException();
+    if (vars != d.vars) throw new IllegalArgumentException();
     int remainder = 0;
-    for (int i = 0; i < degrees.size(); i++) 
-      remainder += Math.abs(d.degrees.get(i) % degrees.get(i));              // In case the remainder is negative, take the absolute value.
+    for (int i = 0; i < vars; i++) 
+      remainder += Math.abs(d.get(i) % get(i));                              // In case the remainder is negative, take the absolute value.
     return (remainder == 0);
   }
+  /**
+   * Compares MultiDegrees d and e of the same length in graded order:
+   * first by total, and then entry by entry starting from the last.
+   * For packed MultiDegrees the second step compares the packed words.
+   * Adding the same MultiDegree to both d and e preserves the order.
+   * @param d
+   * @param e
+   * @return 
+   */
+  static int compare(MultiDegree d, MultiDegree e) {
+    if (d.vars != e.vars) throw new IllegalArgumentException();
+    if (d.total != e.total) 
+      return Integer.compare(d.total, e.total);
+    if (d.degrees == null && e.degrees == null) {                            // fields never reach their guard bits, so later variables sit in higher bits
+      int c = Long.compareUnsigned(d.hi, e.hi);
+      return (c != 0) ? c : Long.compareUnsigned(d.lo, e.lo);
+    }
+    for (int i = d.vars - 1; i >= 0; i--) {
+      int c = Integer.compare(d.get(i), e.get(i));
+      if (c != 0) return c;
+    }
+    return 0;
+  }
   
   
   /*
@@ -168,17 +330,14 @@ public class MultiDegree {
    */
   public static MultiDegree zeros(int n) {
     if (n < 0) throw new IllegalArgumentException();
-    List<Integer> zeros = new ArrayList<>();
-    for (int i = 0; i < n; i++) 
-      zeros.add(0);
-    return new MultiDegree(zeros);
+    return of(new int[n]);
   }
   /**
    * Returns an MultiDegree whose entry list is empty.
    * @return 
    */
   public static MultiDegree empty() {
-    return new MultiDegree(new ArrayList<>());
+    return of(new int[0]);
   }
   
   /**
@@ -188,9 +347,12 @@ public class MultiDegree {
    * @return 
    */
   public static MultiDegree concat(MultiDegree d, MultiDegree e) {
-    List<Integer> f = new ArrayList<>(d.degrees);
-    f.addAll(e.degrees);
-    return new MultiDegree(f);
+    int[] f = new int[d.vars + e.vars];
+    for (int i = 0; i < d.vars; i++) 
+      f[i] = d.get(i);
+    for (int i = 0; i < e.vars; i++) 
+      f[d.vars + i] = e.get(i);
+    return of(f);
   }
   
   /**
@@ -204,7 +366,10 @@ public class MultiDegree {
     if (l < 0 || r < 0) {
       throw new IllegalArgumentException();
     }
-    return concat(concat(zeros(l), d), zeros(r));
+    int[] f = new int[l + d.vars + r];
+    for (int i = 0; i < d.vars; i++) 
+      f[l + i] = d.get(i);
+    return of(f);
   }
   
   /**
@@ -214,11 +379,31 @@ public class MultiDegree {
    * @return 
    */
   public static MultiDegree add(MultiDegree d, MultiDegree e) {
-    if (d.degrees.size() != e.degrees.size()) throw new IllegalArgumentException();
-    List<Integer> f = new ArrayList<>();
-    for (int i = 0; i < d.degrees.size(); i++) 
-      f.add(d.get(i) + e.get(i));
-    return new MultiDegree(f);
+    if (d.vars != e.vars) throw new IllegalArgumentException();
+    if (d.degrees == null && e.degrees == null) {
+      long sumLo = d.lo + e.lo;
+      long sumHi = d.hi + e.hi;
+      if (((sumLo & GUARD_LO[d.vars]) | (sumHi & GUARD_HI[d.vars])) == 0)  // no field ran into its guard bit
+        return new MultiDegree(d.vars, sumLo, sumHi, d.total + e.total);
+    }
+    int[] f = new int[d.vars];
+    for (int i = 0; i < d.vars; i++) 
+      f[i] = d.get(i) + e.get(i);
+    return of(f);
+  }
+  
+  /**
+   * Creates a new MultiDegree whose entries are the entry-wise difference d - e.
+   * @param d
+   * @param e
+   * @return 
+   */
+  public static MultiDegree subtract(MultiDegree d, MultiDegree e) {
+    if (d.vars != e.vars) throw new IllegalArgumentException();
+    int[] f = new int[d.vars];
+    for (int i = 0; i < d.vars; i++) 
+      f[i] = d.get(i) - e.get(i);
+    return of(f);
   }
   
   /**
@@ -227,11 +412,11 @@ public class MultiDegree {
    * @return 
    */
   public static MultiDegree raise(MultiDegree d) {
-    List<Integer> f = new ArrayList<>();
-    for (int i = 0; i < d.degrees.size(); i++) {
-      f.add(d.get(i) + 1);
+    int[] f = d.toArray();
+    for (int i = 0; i < f.length; i++) {
+      f[i]++;
     }
-    return new MultiDegree(f);
+    return of(f);
   }
   /**
    * Returns a new MultiDegree whose degrees are 1 lower than those of d.
@@ -239,11 +424,11 @@ public class MultiDegree {
    * @return 
    */
   public static MultiDegree lower(MultiDegree d) {
-    List<Integer> f = new ArrayList<>();
-    for (int i = 0; i < d.degrees.size(); i++) {
-      f.add(d.get(i) - 1);
+    int[] f = d.toArray();
+    for (int i = 0; i < f.length; i++) {
+      f[i]--;
     }
-    return new MultiDegree(f);
+    return of(f);
   }
 
   
@@ -271,7 +456,9 @@ public class MultiDegree {
      * @param d 
      */
     public Builder(MultiDegree d) {
-      tDegrees = new ArrayList<>(d.degrees);
+      tDegrees = new ArrayList<>();
+      for (int i = 0; i < d.vars; i++) 
+        tDegrees.add(d.get(i));
     }
     /**
      * Constructs an empty MultiDegree.Builder.
@@ -293,7 +480,10 @@ public class MultiDegree {
      * @return 
      */
     public MultiDegree build() {
-      return new MultiDegree(tDegrees);
+      int[] f = new int[tDegrees.size()];
+      for (int i = 0; i < f.length; i++) 
+        f[i] = tDegrees.get(i);
+      return of(f);
     }
 
     
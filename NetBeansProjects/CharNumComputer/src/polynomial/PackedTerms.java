@@ -0,0 +1,443 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * PackedTerms stores terms in an open-addressing hash table 
+ * keyed by a code for each MultiDegree, made of two longs.
+ * 
+ * The code counts exponents rather than degrees: in a ring whose i-th 
+ * variable has degree v_i and truncation t_i, the exponents 
+ * e_i = d_i / v_i are the digits of a mixed-radix number, 
+ * exactly as for DenseTerms.  The first variables make up the low word 
+ * and the rest the high word, which is 0 when the whole box fits in one.
+ * A variable of degree 4 thus takes a quarter of the room its degree would.
+ * 
+ * The codes, MultiDegrees and coefficients sit in parallel arrays,
+ * and collisions are resolved by linear probing, so a lookup compares
+ * longs in adjacent slots and allocates nothing.
+ * A removed term is filled in by shifting later terms of its probe 
+ * sequence back, so there are no tombstones.
+ * 
+ * Codes add when MultiDegrees do, as long as the sum stays in the box,
+ * so products of PackedTerms never recompute a code.
+ * 
+ * The rare MultiDegree outside the box, such as one with a negative
+ * entry or one above the truncation, is kept in a HashTerms on the side.
+ * 
+ * @author William Gollinger
+ * @param <C>
+ */
+class PackedTerms<C extends Coefficient<C>> extends Terms<C> {
+  
+  private static final int MIN_CAPACITY = 8;
+  
+  private final Radix radix;
+  private long[] lows;
+  private long[] highs;
+  private MultiDegree[] degrees;
+  private Object[] coeffs;                                                   // a slot is empty iff its coefficient is null
+  private int count;                                                         // count is the number of occupied slots
+  private int shift;                                                         // a code's first slot is the top (64 - shift) bits of its hash
+  private HashTerms<C> outside;                                              // outside is null until a MultiDegree outside the box arrives
+  
+  /**
+   * Constructs an empty PackedTerms.
+   * @param radix 
+   */
+  PackedTerms(Radix radix) {
+    this.radix = radix;
+    allocate(MIN_CAPACITY);
+  }
+  private PackedTerms(PackedTerms<C> t) {
+    radix   = t.radix;
+    lows    = t.lows.clone();
+    highs   = t.highs.clone();
+    degrees = t.degrees.clone();
+    coeffs  = t.coeffs.clone();
+    count   = t.count;
+    shift   = t.shift;
+    if (t.outside != null && !t.outside.isEmpty()) 
+      outside = t.outside.copy();
+  }
+  
+  
+  /*
+  Implementation.
+  */
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  C get(MultiDegree d) {
+    long low  = radix.low(d);
+    long high = radix.high(d);
+    if (low < 0 || high < 0) 
+      return (outside == null) ? null : outside.get(d);
+    return (C) coeffs[find(low, high)];
+  }
+  @Override
+  void put(MultiDegree d, C a) {
+    long low  = radix.low(d);
+    long high = radix.high(d);
+    if (low < 0 || high < 0) {
+      outside().put(d, a);
+      return;
+    }
+    int i = find(low, high);
+    if (coeffs[i] == null) 
+      i = claim(i, low, high, d);
+    coeffs[i] = a;
+  }
+  @Override
+  @SuppressWarnings("unchecked")
+  void accumulate(MultiDegree d, C a) {
+    long low  = radix.low(d);
+    long high = radix.high(d);
+    if (low < 0 || high < 0) 
+      outside().accumulate(d, a);
+    else 
+      accumulate(low, high, d, a);
+  }
+  @Override
+  @SuppressWarnings("unchecked")
+  void multiplyAdd(Terms<C> p, Terms<C> q, MultiDegree lower, MultiDegree upper) {
+    if (!(p instanceof PackedTerms && q instanceof PackedTerms)) {
+      super.multiplyAdd(p, q, lower, upper);
+      return;
+    }
+    PackedTerms<C> s = (PackedTerms<C>) p;
+    PackedTerms<C> t = (PackedTerms<C>) q;
+    if (s.radix != radix || t.radix != radix || !s.isInside() || !t.isInside() 
+        || upper.exceeds(radix.truncation)) {
+      super.multiplyAdd(p, q, lower, upper);
+      return;
+    }
+    for (int j = 0; j < t.coeffs.length; j++) {
+      if (t.coeffs[j] == null) 
+        continue;
+      C b = (C) t.coeffs[j];
+      for (int i = 0; i < s.coeffs.length; i++) {
+        if (s.coeffs[i] == null) 
+          continue;
+        MultiDegree f = MultiDegree.add(s.degrees[i], t.degrees[j]);
+        if (f.exceeds(upper) || (lower != null && lower.exceeds(f)))        // f <= upper is in the box, so its code is the sum
+          continue;
+        C c = ((C) s.coeffs[i]).times(b);
+        if (!c.isZero()) 
+          accumulate(s.lows[i] + t.lows[j], s.highs[i] + t.highs[j], f, c);
+      }
+    }
+  }
+  
+  /**
+   * Returns true iff every term is in the box.
+   * @return 
+   */
+  private boolean isInside() {
+    return outside == null || outside.isEmpty();
+  }
+  /**
+   * Adds a to the coefficient of d, whose code is (low, high),
+   * removing the term if the sum is zero.
+   * @param low
+   * @param high
+   * @param d
+   * @param a 
+   */
+  @SuppressWarnings("unchecked")
+  private void accumulate(long low, long high, MultiDegree d, C a) {
+    int i = find(low, high);
+    if (coeffs[i] == null) {
+      i = claim(i, low, high, d);
+      coeffs[i] = a;
+      return;
+    }
+    C sum = a.plus((C) coeffs[i]);
+    if (sum.isZero()) 
+      remove(i);
+    else 
+      coeffs[i] = sum;
+  }
+  @Override
+  int size() {
+    return (outside == null) ? count : count + outside.size();
+  }
+  @Override
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<MultiDegree, C> action) {
+    for (int i = 0; i < coeffs.length; i++) 
+      if (coeffs[i] != null) 
+        action.accept(degrees[i], (C) coeffs[i]);
+    if (outside != null) 
+      outside.forEach(action);
+  }
+  @Override
+  PackedTerms<C> copy() {
+    return new PackedTerms<>(this);
+  }
+  @Override
+  void clear() {
+    if (count > 0) {
+      Arrays.fill(coeffs, null);
+      Arrays.fill(degrees, null);
+      count = 0;
+    }
+    outside = null;
+  }
+  
+  /**
+   * Returns the slot holding the code (low, high), 
+   * or the empty slot where it would go.
+   * @param low
+   * @param high
+   * @return 
+   */
+  private int find(long low, long high) {
+    int mask = coeffs.length - 1;
+    int i = slot(low, high);
+    while (coeffs[i] != null && (lows[i] != low || highs[i] != high)) 
+      i = (i + 1) & mask;
+    return i;
+  }
+  /**
+   * Returns the first slot probed for the code (low, high).
+   * @param low
+   * @param high
+   * @return 
+   */
+  private int slot(long low, long high) {
+    return (int) (((low + high * 0xBF58476D1CE4E5B9L) * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+  /**
+   * Places the code (low, high) and d in the empty slot i, growing 
+   * the table if it gets more than half full, 
+   * and returns the slot they end up in.
+   * @param i
+   * @param low
+   * @param high
+   * @param d
+   * @return 
+   */
+  private int claim(int i, long low, long high, MultiDegree d) {
+    if (2 * (count + 1) > coeffs.length) {
+      grow();
+      i = find(low, high);
+    }
+    lows[i]    = low;
+    highs[i]   = high;
+    degrees[i] = d;
+    count++;
+    return i;
+  }
+  /**
+   * Empties slot i and shifts back the terms which probed past it.
+   * @param i 
+   */
+  private void remove(int i) {
+    int mask = coeffs.length - 1;
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (coeffs[j] == null) 
+        break;
+      int k = slot(lows[j], highs[j]);
+      if ((i < j) ? (i < k && k <= j) : (i < k || k <= j))                   // the term at j is not blocked by slot i
+        continue;
+      lows[i]    = lows[j];
+      highs[i]   = highs[j];
+      degrees[i] = degrees[j];
+      coeffs[i]  = coeffs[j];
+      i = j;
+    }
+    degrees[i] = null;
+    coeffs[i]  = null;
+    count--;
+  }
+  /**
+   * Doubles the capacity and reinserts every term.
+   */
+  private void grow() {
+    long[] oldLows  = lows;
+    long[] oldHighs = highs;
+    MultiDegree[] oldDegrees = degrees;
+    Object[] oldCoeffs = coeffs;
+    allocate(2 * oldCoeffs.length);
+    for (int j = 0; j < oldCoeffs.length; j++) {
+      if (oldCoeffs[j] == null) 
+        continue;
+      int i = find(oldLows[j], oldHighs[j]);
+      lows[i]    = oldLows[j];
+      highs[i]   = oldHighs[j];
+      degrees[i] = oldDegrees[j];
+      coeffs[i]  = oldCoeffs[j];
+    }
+  }
+  /**
+   * Replaces the table by an empty one with the given capacity,
+   * which is a power of 2.  Leaves count alone.
+   * @param capacity 
+   */
+  private void allocate(int capacity) {
+    lows    = new long[capacity];
+    highs   = new long[capacity];
+    degrees = new MultiDegree[capacity];
+    coeffs  = new Object[capacity];
+    shift   = 64 - Integer.numberOfTrailingZeros(capacity);
+  }
+  private HashTerms<C> outside() {
+    if (outside == null) 
+      outside = new HashTerms<>();
+    return outside;
+  }
+  
+  
+  /*
+  Nested class PackedTerms.Radix
+  */
+  
+  /**
+   * Radix holds the mixed-radix digits by which the PackedTerms 
+   * of one ring code their MultiDegrees.
+   */
+  static class Radix {
+    
+    private static final long MAX_CODES = 1L << 62;
+    
+    private final MultiDegree truncation;
+    private final int[]  degree;                                             // degree[i] is the degree of variable i
+    private final int[]  log;                                                // log[i] is log_2 of degree[i], or -1 if that is not an integer
+    private final int[]  top;                                                // top[i] is the largest exponent of variable i in the box
+    private final long[] stride;                                             // stride[i] is the code of the i-th variable to the first power, within its word
+    private final int    split;                                              // the variables from split on make up the high word
+    
+    /**
+     * Constructs the Radix of a ring with the given variables and truncation.
+     * Assumes isSupported(variables, truncation).
+     * @param variables
+     * @param truncation 
+     */
+    Radix(MultiDegree variables, MultiDegree truncation) {
+      this.truncation = truncation;
+      int vars = variables.vars();
+      degree = new int[vars];
+      log    = new int[vars];
+      top    = new int[vars];
+      stride = new long[vars];
+      int s = vars;
+      long n = 1;
+      for (int i = 0; i < vars; i++) {
+        int v = variables.get(i);
+        degree[i] = v;
+        log[i]    = (Integer.bitCount(v) == 1) ? Integer.numberOfTrailingZeros(v) : -1;
+        top[i]    = truncation.get(i) / v;
+        if (s == vars && n > MAX_CODES / (top[i] + 1)) {
+          s = i;
+          n = 1;
+        }
+        stride[i] = n;
+        n *= top[i] + 1;
+      }
+      split = s;
+    }
+    
+    /**
+     * Returns true iff a ring with the given variables and truncation 
+     * has a truncation box whose codes fit in two longs.
+     * @param variables
+     * @param truncation
+     * @return 
+     */
+    static boolean isSupported(MultiDegree variables, MultiDegree truncation) {
+      if (!truncation.isBounded()) 
+        return false;
+      boolean high = false;
+      long n = 1;
+      for (int i = 0; i < variables.vars(); i++) {
+        if (variables.get(i) <= 0 || truncation.get(i) < 0) 
+          return false;
+        long r = truncation.get(i) / variables.get(i) + 1;
+        if (n > MAX_CODES / r) {
+          if (high) 
+            return false;
+          high = true;
+          n = 1;
+        }
+        n *= r;
+      }
+      return true;
+    }
+    
+    /**
+     * Returns the low word of the code of d, or -1 if d is not in the box.
+     * @param d
+     * @return 
+     */
+    long low(MultiDegree d) {
+      return code(d, 0, split);
+    }
+    /**
+     * Returns the high word of the code of d, or -1 if d is not in the box.
+     * @param d
+     * @return 
+     */
+    long high(MultiDegree d) {
+      return code(d, split, stride.length);
+    }
+    /**
+     * Returns the code of the exponents of variables from, ..., to - 1 in d,
+     * or -1 if one of them is not in the box.
+     * @param d
+     * @param from
+     * @param to
+     * @return 
+     */
+    private long code(MultiDegree d, int from, int to) {
+      long code = 0;
+      for (int i = from; i < to; i++) {
+        int di = d.get(i);
+        if (di < 0) 
+          return -1;
+        int e;
+        if (log[i] >= 0) {
+          if ((di & (degree[i] - 1)) != 0) 
+            return -1;
+          e = di >>> log[i];
+        } else {
+          if (di % degree[i] != 0) 
+            return -1;
+          e = di / degree[i];
+        }
+        if (e > top[i]) 
+          return -1;
+        code += e * stride[i];
+      }
+      return code;
+    }
+    
+  }
+  
+}
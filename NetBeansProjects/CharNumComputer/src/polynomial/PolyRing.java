@@ -32,11 +32,44 @@ import java.util.*;
  */
 public class PolyRing<C extends Coefficient<C>> {
   
+  /**
+   * The ways a PolyRing can store the terms of its elements.
+   */
+  public enum Storage {
+    /**
+     * A hash table keyed by MultiDegree.  Works for any ring.
+     * When the truncation box is bounded and its exponents fit in two longs, 
+     * the table is keyed by a code made of two longs, whose mixed-radix 
+     * digits are the exponents of each term; the rare term outside 
+     * the box is kept in a table keyed by MultiDegree on the side.
+     */
+    HASH,
+    /**
+     * A flat array indexed by position in the truncation box.
+     * Only available when the truncation is bounded and the box is small.
+     * With IntMod2 coefficients the array is a bitset, one bit per monomial.
+     */
+    DENSE,
+    /**
+     * Arrays of terms sorted by graded order.  Works for any ring.
+     * Sums are linear merges, and each homogeneous part is contiguous.
+     */
+    SORTED,
+    /**
+     * DENSE when it is available, and HASH otherwise.
+     */
+    AUTO
+  }
+  
   private final C cRing;
   
   private MultiDegree variables;
   private MultiDegree truncation;
   protected MultiDegree.Builder mb;
+  private Storage storage;
+  private DenseTerms.Layout layout;                                          // layout is null unless storage is DENSE
+  private BitTerms.Blocks blocks;                                            // blocks is null unless elements are stored as BitTerms
+  private PackedTerms.Radix radix;                                           // radix is null unless elements are stored as PackedTerms
   
   
   /*
@@ -53,14 +86,34 @@ public class PolyRing<C extends Coefficient<C>> {
    */
   public PolyRing(C cRing, MultiDegree variables, MultiDegree truncation,
                   MultiDegree.Builder mb) {
+    this(cRing, variables, truncation, mb, Storage.HASH);
+  }
+  /**
+   * Constructs a PolyRing with given coefficient ring, variables,
+   * truncation, and way of storing elements.
+   * Throws IllegalArgumentException if storage is DENSE 
+   * but the ring's truncation box is not suitable.
+   * @param cRing
+   * @param variables
+   * @param truncation
+   * @param storage 
+   */
+  public PolyRing(C cRing, MultiDegree variables, MultiDegree truncation,
+                  Storage storage) {
+    this(cRing, variables, truncation, new MultiDegree.Builder(), storage);
+  }
+  private PolyRing(C cRing, MultiDegree variables, MultiDegree truncation,
+                  MultiDegree.Builder mb, Storage storage) {
     if (variables.vars() != truncation.vars())
       throw new IllegalArgumentException();
-    if (cRing == null || variables == null || truncation == null || mb == null)
+    if (cRing == null || variables == null || truncation == null 
+        || mb == null || storage == null)
       throw new NullPointerException();
     this.cRing = cRing;
     this.variables = variables;
     this.truncation = truncation;
     this.mb = mb;
+    setStorage(storage);
   }
   /**
    * Constructs a PolyRing with given coefficient ring, variables, and truncation.
@@ -84,6 +137,7 @@ public class PolyRing<C extends Coefficient<C>> {
     mb = new MultiDegree.Builder(truncation.vars());
     variables  = mb.increment().build();
     this.truncation = truncation;
+    setStorage(Storage.HASH);
   }
   /**
    * Constructs a PolyRing with the given coefficient ring.
@@ -99,6 +153,27 @@ public class PolyRing<C extends Coefficient<C>> {
     mb = new MultiDegree.Builder(vars);
     variables  = mb.increment().build();
     truncation = mb.maxAll().build();
+    setStorage(Storage.HASH);
+  }
+  
+  /**
+   * Resolves and records the way elements are stored.
+   * Assumes variables and truncation have been set.
+   * @param storage 
+   */
+  private void setStorage(Storage storage) {
+    boolean denseSupported = DenseTerms.Layout.isSupported(variables, truncation);
+    if (storage == Storage.DENSE && !denseSupported)
+      throw new IllegalArgumentException("Truncation box too large for dense storage.");
+    if (storage == Storage.AUTO) 
+      storage = denseSupported ? Storage.DENSE : Storage.HASH;
+    this.storage = storage;
+    if (storage == Storage.DENSE) 
+      layout = new DenseTerms.Layout(variables, truncation);
+    if (storage == Storage.DENSE && cRing instanceof IntMod2) 
+      blocks = new BitTerms.Blocks(layout);
+    if (storage == Storage.HASH && PackedTerms.Radix.isSupported(variables, truncation)) 
+      radix = new PackedTerms.Radix(variables, truncation);
   }
   
   
@@ -134,6 +209,27 @@ public class PolyRing<C extends Coefficient<C>> {
   public int vars() {
     return variables.vars();
   }
+  /**
+   * Returns the way elements are stored, which is never AUTO.
+   * @return 
+   */
+  public Storage storage() {
+    return storage;
+  }
+  /**
+   * Returns an empty term store of the kind this ring uses.
+   * @return 
+   */
+  @SuppressWarnings("unchecked")
+  Terms<C> newTerms() {
+    if (blocks != null)                                                      // C is IntMod2
+      return (Terms<C>) (Terms<?>) new BitTerms(blocks);
+    if (storage == Storage.SORTED) 
+      return new SortedTerms<>();
+    if (storage == Storage.DENSE) 
+      return new DenseTerms<>(layout);
+    return (radix != null) ? new PackedTerms<>(radix) : new HashTerms<>();
+  }
   
   
   /*
@@ -149,11 +245,12 @@ public class PolyRing<C extends Coefficient<C>> {
   }
   /**
    * Returns the 1 polynomial.
+   * It leaves the ring's builder alone, so that threads sharing the ring
+   * may call it at the same time.
    * @return 
    */
   public Element one() {
-    MultiDegree zero = mb.zero().setVars(variables.vars()).build();
-    return makeElement(zero, cRing.one());
+    return makeElement(MultiDegree.zeros(variables.vars()), cRing.one());
   }
   /**
    * Returns a polynomial which is the sum of p and q.
@@ -165,29 +262,20 @@ public class PolyRing<C extends Coefficient<C>> {
     if (p.vars != q.vars) 
       throw new IllegalArgumentException();
     Element sum = makeElement(p);
-    q.terms.entrySet().stream().forEach(
-        entry -> addMonomial(sum, entry.getKey(),entry.getValue()));
+    addInto(sum, q);
     return sum;
   }
   /**
-   * Alters p by adding the term (d, a).
-   * Assumes d and p have the same number of variables.
-   * @param p
-   * @param d
-   * @param a 
+   * Alters dst by adding p to it.
+   * @param dst
+   * @param p 
    */
-  private void addMonomial(Element p, MultiDegree d, C a) {
-    C b = p.terms.get(d);
-    if (b == null) {
-      p.terms.put(d, a);
-      return;
-    }
-    C sum = a.plus(b);
-    if (sum.isZero()) {
-      p.terms.remove(d);
-      return;
-    }
-    p.terms.put(d, sum);    
+  public void addInto(Element dst, Element p) {
+    if (dst.vars != p.vars) 
+      throw new IllegalArgumentException();
+    dst.alter();
+    Terms<C> summand = (dst == p) ? p.terms.copy() : p.terms;
+    dst.terms.addAll(summand);
   }
   /**
    * Produces the negative of a polynomial.
@@ -196,9 +284,7 @@ public class PolyRing<C extends Coefficient<C>> {
    */
   public Element negative(Element p) {
     Element q = makeElement();
-    p.terms.entrySet()
-        .stream()
-        .forEach(e -> q.terms.put(e.getKey(), cRing.negative(e.getValue())));
+    p.terms.forEach((d, a) -> q.terms.put(d, cRing.negative(a)));
     return q;
   }
   /**
@@ -217,33 +303,178 @@ public class PolyRing<C extends Coefficient<C>> {
    * @return 
    */
   public Element multiply(Element p, Element q) {
-    if (p.vars != q.vars) 
-      throw new IllegalArgumentException();
     Element prod = zero();
-    for (Map.Entry<MultiDegree, C> entry : q.terms.entrySet()) {
-      prod = add(prod, timesMonomial(p, entry.getKey(), entry.getValue()));
-    }
+    multiplyInto(prod, p, q);
     return prod;
   }
   /**
-   * Returns a polynomial with is the product of p and the term (d, a).
-   * Assumes d and p have the same number of variables.
+   * Alters dst so that it is the product of p and q.
+   * Every product of terms is accumulated directly into dst's storage,
+   * so a single dst can be reused as scratch space for many products.
+   * dst may be the same element as p or q.
+   * @param dst
    * @param p
-   * @param d
-   * @param a
+   * @param q 
+   */
+  public void multiplyInto(Element dst, Element p, Element q) {
+    multiplyInto(dst, p, q, null, truncation);
+  }
+  /**
+   * Alters dst so that it is the product of p and q, 
+   * keeping only terms f with lower <= f <= upper.
+   * If lower is null there is no lower bound.
+   * Assumes upper does not exceed truncation.
+   * @param dst
+   * @param p
+   * @param q
+   * @param lower
+   * @param upper 
+   */
+  void multiplyInto(Element dst, Element p, Element q, 
+                    MultiDegree lower, MultiDegree upper) {
+    if (p.vars != q.vars || dst.vars != p.vars) 
+      throw new IllegalArgumentException();
+    dst.alter();
+    Terms<C> prod = dst.terms;
+    if (dst == p || dst == q) 
+      prod = newTerms();
+    else 
+      prod.clear();
+    prod.multiplyAdd(p.terms, q.terms, lower, upper);
+    dst.terms = prod;
+  }
+  
+  
+  /*
+  Power series methods.
+  
+  With a bounded truncation, every polynomial without a constant term 
+  is nilpotent, so the usual power series in it are finite sums.
+  */
+  
+  /**
+   * Returns p^k, computed by repeated squaring.
+   * A negative k needs p to have constant term 1, as for inverse.
+   * @param p
+   * @param k
    * @return 
    */
-  private Element timesMonomial(Element p, MultiDegree d, C a) {
-    Element scaled = zero();
-    for (Map.Entry<MultiDegree, C> entry : p.terms.entrySet()) {
-      MultiDegree newDegree = MultiDegree.add(d, entry.getKey());
-      C newC = a.times(entry.getValue());
-      if (newC.isZero() || newDegree.exceeds(truncation)) 
-        continue;
-      scaled.terms.put(newDegree, newC);
+  public Element power(Element p, int k) {
+    if (k == Integer.MIN_VALUE) {                                            // -k overflows
+      Element inverse = inverse(p);
+      return multiply(power(inverse, Integer.MAX_VALUE), inverse);
+    }
+    if (k < 0) 
+      return power(inverse(p), -k);
+    Element result = one();
+    Element square = p;
+    while (true) {
+      if ((k & 1) == 1) 
+        result = multiply(result, square);
+      k >>= 1;
+      if (k == 0 || result.isZero()) 
+        return result;
+      square = multiply(square, square);
     }
-    return scaled;
-  }  
+  }
+  /**
+   * Returns the inverse of p, which must have constant term 1,
+   * computed by Newton's iteration g -> g + g (1 - p g).
+   * Each step doubles the lowest degree of the error 1 - p g,
+   * so only logarithmically many steps are needed.
+   * Throws IllegalArgumentException if the constant term of p is not 1, 
+   * and UnsupportedOperationException if the truncation is not bounded.
+   * @param p
+   * @return 
+   */
+  public Element inverse(Element p) {
+    Element one = constantTermOne(p);
+    Element g = one;
+    Element error = subtract(one, p);
+    while (!error.isZero()) {
+      g = add(g, multiply(g, error));
+      error = subtract(one, multiply(p, g));
+    }
+    return g;
+  }
+  /**
+   * Returns exp(p) = sum_k p^k / k!, where p has no constant term.
+   * Throws IllegalArgumentException if p has a constant term,
+   * UnsupportedOperationException if the truncation is not bounded,
+   * and ArithmeticException if a division by k is not possible in cRing.
+   * @param p
+   * @return 
+   */
+  public Element exp(Element p) {
+    noConstantTerm(p);
+    Element sum = one();
+    Element term = one();
+    for (int k = 1; !term.isZero(); k++) {
+      term = divide(multiply(term, p), k);
+      addInto(sum, term);
+    }
+    return sum;
+  }
+  /**
+   * Returns log(p) = sum_{k >= 1} (-1)^{k+1} (p - 1)^k / k, 
+   * where p has constant term 1.
+   * Throws IllegalArgumentException if the constant term of p is not 1,
+   * UnsupportedOperationException if the truncation is not bounded,
+   * and ArithmeticException if a division by k is not possible in cRing.
+   * @param p
+   * @return 
+   */
+  public Element log(Element p) {
+    Element x = subtract(p, constantTermOne(p));
+    Element sum = zero();
+    Element power = x;
+    for (int k = 1; !power.isZero(); k++) {
+      Element term = divide(power, k);
+      addInto(sum, (k % 2 == 1) ? term : negative(term));
+      power = multiply(power, x);
+    }
+    return sum;
+  }
+  /**
+   * Returns p with every coefficient divided by k.
+   * @param p
+   * @param k
+   * @return 
+   */
+  private Element divide(Element p, int k) {
+    Element q = makeElement();
+    p.terms.forEach((d, a) -> q.terms.put(d, a.divide(k)));
+    return q;
+  }
+  /**
+   * Returns 1, after checking that p has constant term 1 
+   * and that power series in p - 1 are finite.
+   * @param p
+   * @return 
+   */
+  private Element constantTermOne(Element p) {
+    if (p.vars != variables.vars()) 
+      throw new IllegalArgumentException();
+    if (!truncation.isBounded()) 
+      throw new UnsupportedOperationException("Power series need a bounded truncation.");
+    Element one = one();
+    if (!p.get(MultiDegree.zeros(p.vars)).isOne()) 
+      throw new IllegalArgumentException("Constant term must be 1.");
+    return one;
+  }
+  /**
+   * Checks that p has no constant term 
+   * and that power series in p are finite.
+   * @param p 
+   */
+  private void noConstantTerm(Element p) {
+    if (p.vars != variables.vars()) 
+      throw new IllegalArgumentException();
+    if (!truncation.isBounded()) 
+      throw new UnsupportedOperationException("Power series need a bounded truncation.");
+    if (!p.get(MultiDegree.zeros(p.vars)).isZero()) 
+      throw new IllegalArgumentException("Constant term must be 0.");
+  }
   
   
   /*
@@ -259,6 +490,7 @@ public class PolyRing<C extends Coefficient<C>> {
   }
   /**
    * Makes the monomial with MultiDegree d and Coefficient a.
+   * With DENSE storage, a monomial outside the truncation box is 0.
    * @param d
    * @param a
    * @return 
@@ -271,6 +503,23 @@ public class PolyRing<C extends Coefficient<C>> {
     
     return new Element(this, d, a);
   }
+  /**
+   * Makes the polynomial whose terms are the entries of a Map.
+   * Zero coefficients are skipped, and with DENSE storage 
+   * terms outside the truncation box are dropped.
+   * @param terms
+   * @return 
+   */
+  public Element makeElement(Map<MultiDegree, C> terms) {
+    Element p = makeElement();
+    for (Map.Entry<MultiDegree, C> e : terms.entrySet()) {
+      if (!variables.divides(e.getKey()))
+        throw new IllegalArgumentException();
+      if (!e.getValue().isZero())
+        p.terms.put(e.getKey(), e.getValue());
+    }
+    return p;
+  }
   /**
    * Make a duplicate of the polynomial p.
    * @param p
@@ -288,12 +537,31 @@ public class PolyRing<C extends Coefficient<C>> {
   /**
    * Represent a polynomial, specifically an element of an 
    * instance of PolyRing.
+   * 
+   * An Element remembers its homogeneous parts once they have been 
+   * asked for, until it is altered.  The parts themselves are read-only,
+   * so they can be handed out again, and shared between threads.
+   * 
+   * A copy of an Element in the same ring shares its terms, and its 
+   * homogeneous parts, until one of the two is altered, which then copies 
+   * the terms first.  Copying is therefore cheap, and an Element which is 
+   * never altered can hand out copies from any number of threads.
+   * A copy into another ring takes its own terms at once.
+   * 
+   * Copying marks the source as sharing its terms.  That mark is volatile,
+   * so a thread which alters the source after a copy was made, and after
+   * it has seen the copy by any means, also sees the mark, and copies the 
+   * terms before changing them.  Copying an Element while another thread
+   * alters it is not supported, as for any other read.
    */
   public class Element {
     
-    protected Map<MultiDegree, C> terms;
+    protected Terms<C> terms;
     private final int vars;
     private final PolyRing<C> domain;
+    private boolean readOnly;                                                // true for the homogeneous parts of another Element
+    private volatile boolean sharesTerms;                                    // true if terms may also belong to a copy of this, or to what this copies
+    private volatile SortedMap<Integer, Element> homogeneousParts;           // null until computed, and after each alteration
     
     
     /*
@@ -306,7 +574,7 @@ public class PolyRing<C extends Coefficient<C>> {
      */
     private Element(PolyRing<C> ring) {
       this.domain = ring;
-      terms = new HashMap<>();
+      terms = ring.newTerms();
       vars = variables.vars();
     }
     /**
@@ -325,8 +593,17 @@ public class PolyRing<C extends Coefficient<C>> {
      * @param p 
      */
     private Element(PolyRing<C> ring, Element p) {
-      this(ring);
-      terms = new HashMap<>(p.terms);
+      domain = ring;
+      vars   = variables.vars();
+      if (p.domain == ring) {
+        terms = p.terms;
+        p.sharesTerms = true;
+        sharesTerms   = true;
+        homogeneousParts = p.homogeneousParts;
+      } else {
+        terms = ring.newTerms();
+        p.terms.forEach(terms::put);
+      }
     }
     
     
@@ -385,25 +662,43 @@ public class PolyRing<C extends Coefficient<C>> {
       return (a == null) ? cRing.zero() : a;
     }
     public Map<MultiDegree, C> getTerms() {
-      return new HashMap<>(terms);
+      return terms.toMap();
     }
     /**
-     * Returns a sorted map of homogeneous parts.
+     * Returns an unmodifiable sorted map of homogeneous parts.
+     * The parts are read-only, and altering one of them with addInto 
+     * or multiplyInto throws UnsupportedOperationException.
+     * They are computed on the first call, and shared by later calls
+     * until this is altered.
      * @return 
      */
     public SortedMap<Integer, Element> getHomogeneousParts() {
-      SortedMap<Integer, Element> parts = new TreeMap<>();
-      for (MultiDegree d : this.terms.keySet()) {
-        int total = d.total();
-        if (parts.get(total) == null) {
-          parts.put(total, domain.zero());
-        }
-        parts.put(total, domain.add(
-                parts.get(total), 
-                domain.makeElement(d, terms.get(d))));
-        }
+      SortedMap<Integer, Element> parts = homogeneousParts;
+      if (parts == null) {
+        SortedMap<Integer, Element> graded = new TreeMap<>();
+        terms.forEach((d, a) -> graded
+                .computeIfAbsent(d.total(), total -> domain.zero())
+                .terms.put(d, a));
+        graded.values().forEach(part -> part.readOnly = true);
+        parts = Collections.unmodifiableSortedMap(graded);
+        homogeneousParts = parts;
+      }
       return parts;
     }
+    /**
+     * Forgets the homogeneous parts before this is altered,
+     * and takes its own copy of terms if they are shared.
+     * Throws UnsupportedOperationException if this is read-only.
+     */
+    private void alter() {
+      if (readOnly) 
+        throw new UnsupportedOperationException("Homogeneous parts are read-only.");
+      homogeneousParts = null;
+      if (sharesTerms) {
+        terms = terms.copy();
+        sharesTerms = false;
+      }
+    }
         
   }
   
@@ -434,7 +729,7 @@ class StringMaker {
   private static String homPartToString(PolyRing.Element hom) {
     if (hom.isZero())
       return "";
-    Iterator<Map.Entry<MultiDegree, Coefficient>> itr = hom.terms.entrySet().iterator();
+    Iterator<Map.Entry<MultiDegree, Coefficient>> itr = hom.terms.toMap().entrySet().iterator();
     MultiDegree variables = hom.domain().variables();
     String answer = monomialToString(itr.next(), variables);
     while(itr.hasNext()) {
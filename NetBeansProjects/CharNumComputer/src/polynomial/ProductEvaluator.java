@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+
+/**
+ * A ProductEvaluator computes the coefficient of one fixed monomial,
+ * the target, in products of elements of a PolyRing, 
+ * without computing the rest of the product.
+ * 
+ * Before multiplying, it records the smallest and largest exponent 
+ * of each variable in every factor.  After multiplying the first j factors,
+ * a term can only contribute to the target if the remaining factors can
+ * make up the difference, so terms outside of that window are discarded.
+ * The last factor is never multiplied in: its contribution is the 
+ * pairing of the partial product with it against the target.
+ * 
+ * The partial products of the most recent evaluation are kept, 
+ * one per prefix of its factor list, which is the current path 
+ * through the trie of all factor lists.  The next evaluation reuses
+ * every partial product of the prefix it shares with the previous one
+ * (factors are compared by identity), as long as the window it needs
+ * is contained in the window the partial product was computed with.
+ * When factor lists are evaluated in lexicographic order, 
+ * each distinct prefix product is typically computed only once.
+ * 
+ * A ProductEvaluator reuses its scratch elements between evaluations,
+ * and remembers the exponent bounds of every factor it has seen,
+ * so factors should not be altered while it is in use, 
+ * and it should not be shared between threads.
+ * 
+ * @author William Gollinger
+ * @param <C>
+ */
+public class ProductEvaluator<C extends Coefficient<C>> {
+  
+  private final PolyRing<C>         ring;
+  private final MultiDegree         target;
+  private final PolyRing<C>.Element one;
+  private final Map<PolyRing<C>.Element, int[][]> bounds;                   // bounds.get(f) holds the least and greatest exponents of each variable in f
+  
+  // The trie path of the previous evaluation: partial.get(j) is the product
+  // of the first j factors of path, restricted to [lower.get(j), upper.get(j)].
+  private final List<PolyRing<C>.Element> path;
+  private final List<PolyRing<C>.Element> partial;
+  private final List<MultiDegree>         lower;
+  private final List<MultiDegree>         upper;
+  private int depth;                                                         // partial.get(j) is valid for j <= depth
+  
+  /**
+   * Constructs a ProductEvaluator for the coefficient of target in ring.
+   * @param ring
+   * @param target 
+   */
+  public ProductEvaluator(PolyRing<C> ring, MultiDegree target) {
+    if (ring.vars() != target.vars()) 
+      throw new IllegalArgumentException();
+    this.ring   = ring;
+    this.target = target;
+    one     = ring.one();
+    bounds  = new IdentityHashMap<>();
+    path    = new ArrayList<>();
+    partial = new ArrayList<>();
+    lower   = new ArrayList<>();
+    upper   = new ArrayList<>();
+    partial.add(one);
+    lower.add(null);
+    upper.add(null);
+    depth = 0;
+  }
+  
+  
+  /*
+  Getter methods.
+  */
+  
+  /**
+   * Returns the ring this evaluates products in.
+   * @return 
+   */
+  public PolyRing<C> ring() {
+    return ring;
+  }
+  /**
+   * Returns the MultiDegree whose coefficient this computes.
+   * @return 
+   */
+  public MultiDegree target() {
+    return target;
+  }
+  
+  
+  /*
+  Evaluation.
+  */
+  
+  /**
+   * Returns the coefficient of target in the product of factors.
+   * Throws IllegalArgumentException if a factor is not in the ring.
+   * @param factors
+   * @return 
+   */
+  public C evaluate(List<PolyRing<C>.Element> factors) {
+    C zero = ring.cRing().zero();
+    int k = factors.size();
+    if (k == 0) 
+      return one.get(target);
+    if (target.exceeds(ring.truncation())) 
+      return zero;
+    // suffixMin[j][i] and suffixMax[j][i] bound the exponent of variable i
+    // in any term of the product of factors j, ..., k - 1.
+    int n = target.vars();
+    int[][] suffixMin = new int[k + 1][n];
+    int[][] suffixMax = new int[k + 1][n];
+    for (int j = k - 1; j >= 0; j--) {
+      PolyRing<C>.Element f = factors.get(j);
+      if (f.domain() != ring) 
+        throw new IllegalArgumentException("Factor in wrong domain.");
+      if (f.isZero()) 
+        return zero;
+      int[][] fBounds = bounds.computeIfAbsent(f, this::exponentBounds);
+      for (int i = 0; i < n; i++) {
+        suffixMin[j][i] = fBounds[0][i] + suffixMin[j + 1][i];
+        suffixMax[j][i] = fBounds[1][i] + suffixMax[j + 1][i];
+      }
+    }
+    // Multiply all but the last factor, keeping only terms
+    // from which the target can still be reached, and starting
+    // from the longest reusable prefix of the previous evaluation.
+    MultiDegree.Builder lo = new MultiDegree.Builder(n);
+    MultiDegree.Builder hi = new MultiDegree.Builder(n);
+    int j = 0;
+    boolean reusing = true;
+    while (j < k - 1) {
+      for (int i = 0; i < n; i++) {
+        lo.set(i, target.get(i) - suffixMax[j + 1][i]);
+        hi.set(i, target.get(i) - suffixMin[j + 1][i]);
+      }
+      MultiDegree l = lo.build();
+      MultiDegree u = hi.build();
+      reusing = reusing && j < depth 
+                        && path.get(j) == factors.get(j)
+                        && !lower.get(j + 1).exceeds(l) 
+                        && !u.exceeds(upper.get(j + 1));
+      if (!reusing) 
+        extend(j, factors.get(j), l, u);
+      j++;
+      if (partial.get(j).isZero()) 
+        return zero;
+    }
+    return partial.get(k - 1).terms.pair(factors.get(k - 1).terms, target, zero);
+  }
+  /**
+   * Replaces the partial product of the first j + 1 factors of path 
+   * by the product of partial.get(j) with f, restricted to [l, u].
+   * Assumes partial.get(j) is valid.
+   * @param j
+   * @param f
+   * @param l
+   * @param u 
+   */
+  private void extend(int j, PolyRing<C>.Element f, MultiDegree l, MultiDegree u) {
+    if (partial.size() == j + 1) {
+      partial.add(ring.zero());
+      lower.add(null);
+      upper.add(null);
+    }
+    if (path.size() == j) 
+      path.add(f);
+    else 
+      path.set(j, f);
+    ring.multiplyInto(partial.get(j + 1), partial.get(j), f, l, u);
+    lower.set(j + 1, l);
+    upper.set(j + 1, u);
+    depth = j + 1;
+  }
+  /**
+   * Returns the least and greatest exponent of each variable in f.
+   * Assumes f is non-zero.
+   * @param f
+   * @return 
+   */
+  private int[][] exponentBounds(PolyRing<C>.Element f) {
+    int n = target.vars();
+    int[] min = new int[n];
+    int[] max = new int[n];
+    Arrays.fill(min, Integer.MAX_VALUE);
+    Arrays.fill(max, Integer.MIN_VALUE);
+    f.terms.forEach((d, a) -> {
+      for (int i = 0; i < n; i++) {
+        min[i] = Math.min(min[i], d.get(i));
+        max[i] = Math.max(max[i], d.get(i));
+      }
+    });
+    return new int[][]{min, max};
+  }
+  
+}
@@ -0,0 +1,293 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * SortedTerms stores terms in two parallel arrays, one of MultiDegrees
+ * and one of coefficients, sorted by MultiDegree.compare.
+ * It places no restriction on the MultiDegrees it holds.
+ * 
+ * Since the order is graded, the terms of each homogeneous part 
+ * are contiguous.  Adding two SortedTerms is a linear merge,
+ * and a term which sorts after every other term is appended directly,
+ * so copying terms in order never shifts the arrays.
+ * 
+ * Multiplying a SortedTerms by a monomial preserves the order, 
+ * so a product is computed as one sorted row per term of a factor,
+ * and the rows are merged pairwise.
+ * 
+ * @author William Gollinger
+ * @param <C>
+ */
+class SortedTerms<C extends Coefficient<C>> extends Terms<C> {
+  
+  private static final MultiDegree[] NO_DEGREES = new MultiDegree[0];
+  private static final Object[]      NO_COEFFS  = new Object[0];
+  
+  private MultiDegree[] degrees;
+  private Object[] coeffs;                                                   // coeffs[i] is the non-zero C belonging to degrees[i]
+  private int size;
+  
+  /**
+   * Constructs an empty SortedTerms.
+   */
+  SortedTerms() {
+    this(NO_DEGREES, NO_COEFFS, 0);
+  }
+  /**
+   * Takes ownership of the arrays, whose first size entries are sorted.
+   * @param degrees
+   * @param coeffs
+   * @param size 
+   */
+  private SortedTerms(MultiDegree[] degrees, Object[] coeffs, int size) {
+    this.degrees = degrees;
+    this.coeffs  = coeffs;
+    this.size    = size;
+  }
+  
+  
+  /*
+  Implementation.
+  */
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  C get(MultiDegree d) {
+    int i = search(d);
+    return (i >= 0) ? (C) coeffs[i] : null;
+  }
+  @Override
+  void put(MultiDegree d, C a) {
+    int i = search(d);
+    if (i >= 0) 
+      coeffs[i] = a;
+    else 
+      insert(-i - 1, d, a);
+  }
+  @Override
+  @SuppressWarnings("unchecked")
+  void accumulate(MultiDegree d, C a) {
+    int i = search(d);
+    if (i < 0) {
+      insert(-i - 1, d, a);
+      return;
+    }
+    C sum = a.plus((C) coeffs[i]);
+    if (sum.isZero()) 
+      remove(i);
+    else 
+      coeffs[i] = sum;
+  }
+  @Override
+  int size() {
+    return size;
+  }
+  @Override
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<MultiDegree, C> action) {
+    for (int i = 0; i < size; i++) 
+      action.accept(degrees[i], (C) coeffs[i]);
+  }
+  @Override
+  SortedTerms<C> copy() {
+    return new SortedTerms<>(Arrays.copyOf(degrees, size), 
+                             Arrays.copyOf(coeffs, size), size);
+  }
+  @Override
+  void clear() {
+    Arrays.fill(coeffs, 0, size, null);
+    Arrays.fill(degrees, 0, size, null);
+    size = 0;
+  }
+  @Override
+  void addAll(Terms<C> t) {
+    if (!(t instanceof SortedTerms)) {
+      super.addAll(t);
+      return;
+    }
+    SortedTerms<C> sum = merge(this, (SortedTerms<C>) t);
+    degrees = sum.degrees;
+    coeffs  = sum.coeffs;
+    size    = sum.size;
+  }
+  @Override
+  @SuppressWarnings("unchecked")
+  void multiplyAdd(Terms<C> p, Terms<C> q, MultiDegree lower, MultiDegree upper) {
+    if (!(p instanceof SortedTerms && q instanceof SortedTerms)) {
+      super.multiplyAdd(p, q, lower, upper);
+      return;
+    }
+    SortedTerms<C> s = (SortedTerms<C>) p;
+    SortedTerms<C> t = (SortedTerms<C>) q;
+    if (s.size < t.size) {                                                   // fewer, longer rows
+      SortedTerms<C> swap = s;
+      s = t;
+      t = swap;
+    }
+    List<SortedTerms<C>> rows = new ArrayList<>(t.size + 1);
+    rows.add(this);
+    for (int j = 0; j < t.size; j++) 
+      rows.add(s.times(t.degrees[j], (C) t.coeffs[j], lower, upper));
+    while (rows.size() > 1) {
+      List<SortedTerms<C>> merged = new ArrayList<>((rows.size() + 1) / 2);
+      for (int i = 0; i + 1 < rows.size(); i += 2) 
+        merged.add(merge(rows.get(i), rows.get(i + 1)));
+      if (rows.size() % 2 == 1) 
+        merged.add(rows.get(rows.size() - 1));
+      rows = merged;
+    }
+    SortedTerms<C> sum = rows.get(0);
+    degrees = sum.degrees;
+    coeffs  = sum.coeffs;
+    size    = sum.size;
+  }
+  
+  /**
+   * Returns the position of d if it is present, 
+   * and otherwise -(insertion point) - 1.
+   * A MultiDegree after every term is found without a binary search.
+   * @param d
+   * @return 
+   */
+  private int search(MultiDegree d) {
+    if (size == 0 || MultiDegree.compare(degrees[size - 1], d) < 0) 
+      return -size - 1;
+    int lo = 0;
+    int hi = size - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int c = MultiDegree.compare(degrees[mid], d);
+      if (c < 0) 
+        lo = mid + 1;
+      else if (c > 0) 
+        hi = mid - 1;
+      else 
+        return mid;
+    }
+    return -lo - 1;
+  }
+  /**
+   * Inserts the term a * d at position i.
+   * @param i
+   * @param d
+   * @param a 
+   */
+  private void insert(int i, MultiDegree d, C a) {
+    if (size == degrees.length) {
+      int capacity = Math.max(4, 2 * size);
+      degrees = Arrays.copyOf(degrees, capacity);
+      coeffs  = Arrays.copyOf(coeffs, capacity);
+    }
+    System.arraycopy(degrees, i, degrees, i + 1, size - i);
+    System.arraycopy(coeffs,  i, coeffs,  i + 1, size - i);
+    degrees[i] = d;
+    coeffs[i]  = a;
+    size++;
+  }
+  /**
+   * Removes the term at position i.
+   * @param i 
+   */
+  private void remove(int i) {
+    size--;
+    System.arraycopy(degrees, i + 1, degrees, i, size - i);
+    System.arraycopy(coeffs,  i + 1, coeffs,  i, size - i);
+    degrees[size] = null;
+    coeffs[size]  = null;
+  }
+  /**
+   * Returns the terms of this times a * d which satisfy
+   * lower <= f <= upper, in order.  If lower is null there is no lower bound.
+   * @param d
+   * @param a
+   * @param lower
+   * @param upper
+   * @return 
+   */
+  @SuppressWarnings("unchecked")
+  private SortedTerms<C> times(MultiDegree d, C a, MultiDegree lower, MultiDegree upper) {
+    MultiDegree[] rowDegrees = new MultiDegree[size];
+    Object[] rowCoeffs = new Object[size];
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      MultiDegree f = MultiDegree.add(degrees[i], d);
+      if (f.exceeds(upper) || (lower != null && lower.exceeds(f))) 
+        continue;
+      C c = ((C) coeffs[i]).times(a);
+      if (c.isZero()) 
+        continue;
+      rowDegrees[n] = f;
+      rowCoeffs[n]  = c;
+      n++;
+    }
+    return new SortedTerms<>(rowDegrees, rowCoeffs, n);
+  }
+  /**
+   * Returns the sum of s and t, in fresh arrays.
+   * @param <C>
+   * @param s
+   * @param t
+   * @return 
+   */
+  @SuppressWarnings("unchecked")
+  private static <C extends Coefficient<C>> SortedTerms<C> merge(SortedTerms<C> s, SortedTerms<C> t) {
+    MultiDegree[] mDegrees = new MultiDegree[s.size + t.size];
+    Object[] mCoeffs = new Object[s.size + t.size];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < s.size && j < t.size) {
+      int c = MultiDegree.compare(s.degrees[i], t.degrees[j]);
+      if (c < 0) {
+        mDegrees[n] = s.degrees[i];
+        mCoeffs[n++] = s.coeffs[i++];
+      } else if (c > 0) {
+        mDegrees[n] = t.degrees[j];
+        mCoeffs[n++] = t.coeffs[j++];
+      } else {
+        C sum = ((C) s.coeffs[i]).plus((C) t.coeffs[j]);
+        if (!sum.isZero()) {
+          mDegrees[n] = s.degrees[i];
+          mCoeffs[n++] = sum;
+        }
+        i++;
+        j++;
+      }
+    }
+    for (; i < s.size; i++, n++) {
+      mDegrees[n] = s.degrees[i];
+      mCoeffs[n]  = s.coeffs[i];
+    }
+    for (; j < t.size; j++, n++) {
+      mDegrees[n] = t.degrees[j];
+      mCoeffs[n]  = t.coeffs[j];
+    }
+    return new SortedTerms<>(mDegrees, mCoeffs, n);
+  }
+  
+}
@@ -55,8 +55,19 @@ public class Tensor<C extends Coefficient<C>> extends PolyRing<C> {
    * @param factors 
    */
   public Tensor(C cRing, List<PolyRing<C>> factors) {
+    this(cRing, factors, Storage.HASH);
+  }
+  /**
+   * Constructs the tensor product of a list of PolyRings with coefficient C,
+   * whose elements are stored in the given way.
+   * @param cRing
+   * @param factors
+   * @param storage 
+   */
+  public Tensor(C cRing, List<PolyRing<C>> factors, Storage storage) {
     super(cRing, concatStream(factors.stream().map(ring -> ring.variables())),
-                concatStream(factors.stream().map(ring -> ring.truncation()))
+                concatStream(factors.stream().map(ring -> ring.truncation())),
+                storage
     );
     this.factors = factors;
     varSums = new ArrayList<>();
@@ -136,9 +147,7 @@ public class Tensor<C extends Coefficient<C>> extends PolyRing<C> {
    */
   private Element inject(PolyRing<C>.Element p, int i) {
     Element pPrime = zero();
-    for (MultiDegree d : p.terms.keySet()) {
-      pPrime.terms.put(injectMultiDegree(d, i), p.terms.get(d));
-    }
+    p.terms.forEach((d, a) -> pPrime.terms.put(injectMultiDegree(d, i), a));
     return pPrime;
   }
   /**
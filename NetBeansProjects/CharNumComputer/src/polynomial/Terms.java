@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Terms is the storage behind a PolyRing.Element: a collection of 
+ * monomials, each given by a MultiDegree and a non-zero Coefficient.
+ * 
+ * Implementations differ in how the terms are laid out, but they all 
+ * keep at most one term per MultiDegree and drop a term as soon as 
+ * its coefficient becomes zero.  Two Terms are equal iff they
+ * contain the same terms, regardless of implementation.
+ * 
+ * @author William Gollinger
+ * @param <C>
+ */
+abstract class Terms<C extends Coefficient<C>> {
+  
+  /**
+   * Returns the coefficient of d, or null if there is no such term.
+   * @param d
+   * @return 
+   */
+  abstract C get(MultiDegree d);
+  /**
+   * Sets the coefficient of d to a.
+   * Assumes a is non-zero.
+   * @param d
+   * @param a 
+   */
+  abstract void put(MultiDegree d, C a);
+  /**
+   * Adds a to the coefficient of d, removing the term if the sum is zero.
+   * @param d
+   * @param a 
+   */
+  abstract void accumulate(MultiDegree d, C a);
+  /**
+   * Returns the number of terms.
+   * @return 
+   */
+  abstract int size();
+  /**
+   * Performs action on every term.
+   * @param action 
+   */
+  abstract void forEach(BiConsumer<MultiDegree, C> action);
+  /**
+   * Returns a duplicate which can be altered independently of this.
+   * @return 
+   */
+  abstract Terms<C> copy();
+  /**
+   * Removes all terms.
+   */
+  abstract void clear();
+  
+  /**
+   * Returns true iff there are no terms.
+   * @return 
+   */
+  boolean isEmpty() {
+    return size() == 0;
+  }
+  /**
+   * Adds the terms of t to this.
+   * Assumes t is not this.
+   * @param t 
+   */
+  void addAll(Terms<C> t) {
+    t.forEach(this::accumulate);
+  }
+  /**
+   * Adds p * q to this, discarding products f which do not satisfy
+   * lower <= f <= upper.  If lower is null there is no lower bound.
+   * Assumes p and q are not this.
+   * @param p
+   * @param q
+   * @param lower
+   * @param upper 
+   */
+  void multiplyAdd(Terms<C> p, Terms<C> q, MultiDegree lower, MultiDegree upper) {
+    q.forEach((d, a) -> p.forEach((e, b) -> {
+      MultiDegree f = MultiDegree.add(d, e);
+      if (f.exceeds(upper) || (lower != null && lower.exceeds(f))) 
+        return;
+      C c = a.times(b);
+      if (!c.isZero()) 
+        accumulate(f, c);
+    }));
+  }
+  /**
+   * Returns the coefficient of target in this * q,
+   * without computing any other coefficient.
+   * @param q
+   * @param target
+   * @param zero
+   * @return 
+   */
+  C pair(Terms<C> q, MultiDegree target, C zero) {
+    List<C> sum = new ArrayList<>(1);
+    sum.add(zero);
+    forEach((d, a) -> {
+      C b = q.get(MultiDegree.subtract(target, d));
+      if (b != null) 
+        sum.set(0, sum.get(0).plus(a.times(b)));
+    });
+    return sum.get(0);
+  }
+  /**
+   * Returns the terms in a new HashMap.
+   * @return 
+   */
+  Map<MultiDegree, C> toMap() {
+    Map<MultiDegree, C> map = new HashMap<>();
+    forEach(map::put);
+    return map;
+  }
+  
+  
+  /*
+  Utility methods.
+  */
+  
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Terms)) 
+      return false;
+    Terms<?> t = (Terms<?>) o;
+    if (t.size() != size()) 
+      return false;
+    boolean[] same = {true};
+    forEach((d, a) -> same[0] &= a.equals(t.get(d)));
+    return same[0];
+  }
+  /**
+   * Agrees with the hashCode of a Map holding the same terms.
+   * @return 
+   */
+  @Override
+  public int hashCode() {
+    int[] hash = {0};
+    forEach((d, a) -> hash[0] += d.hashCode() ^ a.hashCode());
+    return hash[0];
+  }
+  
+}
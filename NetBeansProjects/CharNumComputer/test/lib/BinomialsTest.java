@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lib;
+
+import java.math.BigInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class BinomialsTest {
+  
+  public BinomialsTest() {
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+  
+  /**
+   * Returns "n choose k" by the multiplicative formula.
+   */
+  private static BigInteger direct(int n, int k) {
+    BigInteger b = BigInteger.ONE;
+    for (int i = 1; i <= k; i++) 
+      b = b.multiply(BigInteger.valueOf(n - k + i)).divide(BigInteger.valueOf(i));
+    return b;
+  }
+
+  /**
+   * Test of binomial and longBinomial methods, of class Binomials.
+   */
+  @Test
+  public void testBinomial() {
+    System.out.println("binomial");
+    assertEquals(BigInteger.valueOf(10), Binomials.binomial(5, 2));
+    assertEquals(BigInteger.ZERO, Binomials.binomial(5, 6));
+    assertEquals(BigInteger.ZERO, Binomials.binomial(5, -1));
+    for (int n : new int[] {0, 1, 66, 67, 100, 1023, 1024, 1500}) {
+      for (int k = 0; k <= n; k += 1 + n / 20) 
+        assertEquals(direct(n, k), Binomials.binomial(n, k));
+      assertEquals(direct(n, n / 2), Binomials.binomial(n, n / 2));
+    }
+    assertEquals(7219428434016265740L, Binomials.longBinomial(66, 33));
+    assertEquals(161700L, Binomials.longBinomial(100, 3));
+    try {
+      Binomials.longBinomial(67, 33);
+      fail();
+    } catch (ArithmeticException e) {
+    }
+  }
+
+  /**
+   * Test of binomialMod2 and binomialMod methods, of class Binomials.
+   */
+  @Test
+  public void testBinomialMod() {
+    System.out.println("binomialMod");
+    for (int n = 0; n < 200; n += 7) {
+      for (int k = 0; k <= n; k++) {
+        BigInteger b = Binomials.binomial(n, k);
+        assertEquals(b.testBit(0) ? 1 : 0, Binomials.binomialMod2(n, k));
+        for (long p : new long[] {2, 3, 7, 101, 2147483647L}) 
+          assertEquals(b.mod(BigInteger.valueOf(p)).longValue(), Binomials.binomialMod(n, k, p));
+      }
+    }
+    assertEquals(0, Binomials.binomialMod2(6, 7));
+    assertEquals(1, Binomials.binomialMod2(1 << 30, 1 << 30));
+  }
+  
+}
@@ -23,7 +23,10 @@
  */
 package lib;
 
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -70,6 +73,38 @@ public class PartitionComputerTest {
     assertEquals(occ6.get(4).size(), 2);
   }
 
+  /**
+   * Test of containingAny method, of class PartitionComputer.
+   */
+  @Test
+  public void testContainingAny() {
+    System.out.println("containingAny");
+    PartitionComputer pc = new PartitionComputer();
+    List<Partition> parts = pc.getPartitions(12, pc.containingAny(12, 8, 12));
+    assertEquals(12, parts.size());                                          // p(4) + p(3) + p(2) + p(1) + p(0)
+    for (Partition part : parts) {
+      assert(part.max() >= 8);
+    }
+    assertEquals(77, pc.containingAny(12, 1, 12).cardinality());
+    assert(pc.containingAny(12, 13, 20).isEmpty());
+  }
+
+  /**
+   * Test of containingAll method, of class PartitionComputer.
+   */
+  @Test
+  public void testContainingAll() {
+    System.out.println("containingAll");
+    PartitionComputer pc = new PartitionComputer();
+    List<Partition> parts = pc.getPartitions(6, pc.containingAll(6, 1, 2));
+    assertEquals(3, parts.size());                                           // [1, 1, 2, 2], [1, 1, 1, 1, 2] and [1, 2, 3]
+    for (Partition part : parts) {
+      assert(part.multiplicity(1) > 0 && part.multiplicity(2) > 0);
+    }
+    assertEquals(11, pc.containingAll(6).cardinality());
+    assert(pc.containingAll(6, 7).isEmpty());
+  }
+
   /**
    * Test of dynamicCountPartitions method, of class PartitionComputer.
    */
@@ -80,4 +115,109 @@ public class PartitionComputerTest {
     assertEquals(pc.dynamicCountPartitions(100), 190569292); //too long for getPartitions
   }
   
+  /**
+   * Test of countPartitions method, of class PartitionComputer.
+   */
+  @Test
+  public void testCountPartitions() {
+    System.out.println("countPartitions");
+    PartitionComputer pc = new PartitionComputer(20);
+    for (int n = 0; n <= 20; n++) {
+      assertEquals(pc.getPartitions(n).size(), pc.countPartitions(n).intValue());
+    }
+    assertEquals(new BigInteger("3972999029388"), pc.countPartitions(200));
+    assertEquals(new BigInteger("24061467864032622473692149727991"), pc.countPartitions(1000));
+    try {
+      pc.dynamicCountPartitions(150);
+      assert(false);
+    } catch (ArithmeticException e) {
+    }
+  }
+
+  /**
+   * Test of rank and unrank methods, of class PartitionComputer.
+   */
+  @Test
+  public void testRank() {
+    System.out.println("rank");
+    PartitionComputer pc = new PartitionComputer();
+    for (int n = 0; n <= 15; n++) {
+      List<Partition> lex = pc.getPartitions(n);
+      Collections.sort(lex);
+      for (int i = 0; i < lex.size(); i++) {
+        BigInteger rank = BigInteger.valueOf(i);
+        assertEquals(rank, pc.rank(lex.get(i)));
+        assertEquals(lex.get(i), pc.unrank(n, rank));
+      }
+    }
+    Partition big = pc.unrank(1000, pc.countPartitions(1000).shiftRight(1));
+    assertEquals(1000, big.sum());
+    assertEquals(pc.countPartitions(1000).shiftRight(1), pc.rank(big));
+    try {
+      pc.unrank(5, BigInteger.valueOf(7));
+      assert(false);
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  /**
+   * Test of streamPartitions method with a range of ranks, 
+   * of class PartitionComputer.
+   */
+  @Test
+  public void testStreamPartitionsRange() {
+    System.out.println("streamPartitionsRange");
+    PartitionComputer pc = new PartitionComputer();
+    List<Partition> lex = pc.streamPartitions(12).collect(Collectors.toList());
+    // Shard the 77 partitions of 12 into ranges of 10.
+    List<Partition> sharded = new ArrayList<>();
+    for (int from = 0; from < lex.size(); from += 10) {
+      pc.streamPartitions(12, BigInteger.valueOf(from), 10).forEach(sharded::add);
+    }
+    assertEquals(lex, sharded);
+    assertEquals(lex.subList(70, 77), 
+                 pc.streamPartitions(12, BigInteger.valueOf(70), 100).collect(Collectors.toList()));
+    assertEquals(1, pc.streamPartitions(0, BigInteger.ZERO, 5).count());
+  }
+
+  /**
+   * Test of concurrent use of a PartitionComputer.
+   */
+  @Test
+  public void testConcurrentUse() throws Exception {
+    System.out.println("concurrentUse");
+    int max = 24;
+    PartitionComputer reference = new PartitionComputer(max);
+    int count = reference.dynamicCountPartitions(2 * max);
+    PartitionComputer pc = new PartitionComputer();
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int seed = t;
+      results.add(executor.submit(() -> {
+        Random random = new Random(seed);
+        start.await();
+        boolean consistent = true;
+        for (int i = 0; i < 200; i++) {
+          int n = random.nextInt(max + 1);                                   // some of these extend the rows, the rest only read them
+          consistent &= pc.getPartitions(n).equals(reference.getPartitions(n));
+          consistent &= pc.getOccurrences(n).equals(reference.getOccurrences(n));
+          consistent &= pc.dynamicCountPartitions(2 * n) == reference.dynamicCountPartitions(2 * n);
+        }
+        consistent &= pc.dynamicCountPartitions(2 * max) == count;
+        return consistent;
+      }));
+    }
+    start.countDown();
+    try {
+      for (Future<Boolean> result : results) {
+        assert(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+  
 }
@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lib;
+
+import java.util.*;
+import java.util.stream.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class PartitionSpliteratorTest {
+  
+  PartitionComputer pc;
+  
+  public PartitionSpliteratorTest() {
+    pc = new PartitionComputer(20);
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of tryAdvance method, of class PartitionSpliterator.
+   */
+  @Test
+  public void testTryAdvance() {
+    System.out.println("tryAdvance");
+    for (int n = 0; n <= 20; n++) {
+      List<Partition> expected = pc.getPartitions(n);
+      Collections.sort(expected);
+      List<Partition> streamed = StreamSupport.stream(new PartitionSpliterator(n), false)
+                                              .collect(Collectors.toList());
+      assertEquals(expected, streamed);
+    }
+    assertEquals(0, pc.streamPartitions(-1).count());
+  }
+
+  /**
+   * Test of trySplit method, of class PartitionSpliterator.
+   */
+  @Test
+  public void testTrySplit() {
+    System.out.println("trySplit");
+    for (int n = 0; n <= 20; n++) {
+      List<Partition> expected = pc.getPartitions(n);
+      Collections.sort(expected);
+      // Split as far as possible, keeping the pieces in order.
+      List<Spliterator<Partition>> pieces = new ArrayList<>();
+      pieces.add(new PartitionSpliterator(n));
+      for (int i = 0; i < pieces.size(); ) {
+        Spliterator<Partition> split = pieces.get(i).trySplit();
+        if (split == null) 
+          i++;
+        else 
+          pieces.add(i, split);
+      }
+      List<Partition> streamed = new ArrayList<>();
+      pieces.forEach(piece -> piece.forEachRemaining(streamed::add));
+      assertEquals(expected, streamed);
+      // A parallel stream sees the same partitions, in the same order.
+      assertEquals(expected, StreamSupport.stream(new PartitionSpliterator(n), true)
+                                          .collect(Collectors.toList()));
+    }
+  }
+  
+}
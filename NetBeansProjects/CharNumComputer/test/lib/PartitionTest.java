@@ -126,4 +126,71 @@ public class PartitionTest {
     assert(Partition.merge(p, empty).equals(p));
   }
   
-}
+  /**
+   * Test of compareTo method, of class Partition.
+   */
+  @Test
+  public void testCompareTo() {
+    System.out.println("compareTo");
+    Partition q = new Partition(new Integer[]{2, 3, 3, 4});                  // a proper prefix of p
+    Partition r = new Partition(new Integer[]{2, 3, 4});
+    assert(q.compareTo(p) < 0);
+    assert(p.compareTo(r) < 0);
+    assert(empty.compareTo(q) < 0);
+    assertEquals(0, p.compareTo(new Partition(new Integer[]{6, 4, 3, 3, 2})));
+  }
+  
+  /**
+   * Test of size and get methods, of class Partition.
+   */
+  @Test
+  public void testGet() {
+    System.out.println("get");
+    assertEquals(5, p.size());
+    assertEquals(0, empty.size());
+    int[] expected = {2, 3, 3, 4, 6};
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], p.get(i));
+    }
+    // Numbers too large to pack into a byte each.
+    Partition q = new Partition(new Integer[]{300, 1, 70000});
+    assertEquals(3, q.size());
+    assertEquals(1, q.get(0));
+    assertEquals(300, q.get(1));
+    assertEquals(70000, q.get(2));
+    assertEquals(70301, q.sum());
+    assertEquals(70000, q.max());
+    assertEquals(Arrays.asList(1, 300, 70000).hashCode(), q.hashCode());
+    assert(q.toString().equals("[1, 300, 70000]"));
+    assert(Partition.merge(q, p).equals(new Partition(
+        new Integer[]{1, 2, 3, 3, 4, 6, 300, 70000})));
+  }
+
+  /**
+   * Test of multiplicity method, of class Partition.
+   */
+  @Test
+  public void testMultiplicity() {
+    System.out.println("multiplicity");
+    assertEquals(2, p.multiplicity(3));
+    assertEquals(1, p.multiplicity(6));
+    assertEquals(0, p.multiplicity(5));
+    assertEquals(0, empty.multiplicity(1));
+  }
+
+  /**
+   * Test of iterator method, of class Partition.
+   */
+  @Test
+  public void testIterator() {
+    System.out.println("iterator");
+    PrimitiveIterator.OfInt it = p.iterator();
+    List<Integer> numbers = new ArrayList<>();
+    while (it.hasNext()) {
+      numbers.add(it.nextInt());
+    }
+    assert(numbers.equals(p.getNumbers()));
+    assert(!empty.iterator().hasNext());
+  }
+  
+}
\ No newline at end of file
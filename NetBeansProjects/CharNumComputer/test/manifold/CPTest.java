@@ -27,6 +27,8 @@ import polynomial.MultiDegree;
 import polynomial.*;
 import lib.*;
 import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.*;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -187,6 +189,38 @@ public class CPTest {
     assert(charNums.stiefelWhitneyNumber(v2v2).equals(IntMod2.ring.one()));
  }
 
+  /**
+   * Test of modularCharNumbers method, of class Manifold.CharNumbers, 
+   * on CP(18), whose Chern number c_1^18 = 19^18 overflows a long.
+   */
+  @Test
+  public void testModularCharNumbers() throws Exception {
+    System.out.println("modularCharNumbers");
+    PartitionComputer pc = new PartitionComputer();
+    Manifold m = new CP(18);
+    Manifold.CharNumbers expected = m.getCharNumbers(pc);
+    Integer[] ones = new Integer[18];
+    Arrays.fill(ones, 1);
+    assertEquals(new BigInt(BigInteger.valueOf(19).pow(18)), 
+                 expected.chernNumber(new Partition(ones)));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      assertEquals(expected.getChernNumbers(), 
+                   Manifold.CharNumbers.modularCharNumbers(
+                           m.chernClass(), m.mu(), pc, 2, executor).get());
+      assertEquals(expected.getPontryaginNumbers(), 
+                   Manifold.CharNumbers.modularCharNumbers(
+                           m.pontClass(), m.mu(), pc, 4, null).get());
+    } finally {
+      executor.shutdown();
+    }
+    // an executor which rejects every piece leaves them to the caller
+    Manifold cp4 = new CP(4);
+    CompletableFuture<Map<Partition, BigInt>> chern = 
+            Manifold.CharNumbers.modularCharNumbers(cp4.chernClass(), cp4.mu(), pc, 2, executor);
+    assertEquals(cp4.getCharNumbers(pc).getChernNumbers(), chern.get(5, TimeUnit.SECONDS));
+  }
+
   /**
    * Test of binomial method, of class CP.
    */
@@ -194,6 +228,12 @@ public class CPTest {
   public void testBinomial() {
     System.out.println("binomial");
     assert(CP.binomial(5,2).equals(BigInteger.valueOf(10)));
+    // 101 choose 50 overflows a long
+    assert(CP.binomial(101,50).equals(new BigInteger("199804427433372226016001220056")));
+    Manifold m = new CP(100);
+    MultiDegree u50 = new MultiDegree.Builder(1).set(0, 100).build();
+    assertEquals(new BigInt(CP.binomial(101, 50)), m.chernClass().get(u50));
+    assert(m.swClass().get(u50).isZero());                                   // 50 = 110010 is not below 101 = 1100101 bitwise
   }
   
 }
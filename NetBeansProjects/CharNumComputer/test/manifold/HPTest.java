@@ -23,6 +23,7 @@
  */
 package manifold;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 import lib.*;
 import polynomial.*;
@@ -116,6 +117,28 @@ public class HPTest {
     m.chernClass();
   }
   
+  /**
+   * Test of the Pontryagin class of HP(n) for n past the range of int.
+   */
+  @Test
+  public void testLargeCharacteristicClasses() {
+    System.out.println("large charClasses");
+    int n = 40;
+    PolyRing<BigInt>.Element pont = new HP(n).pontClass();
+    MultiDegree.Builder mb = new MultiDegree.Builder(1);
+    for (int i = 0; i <= n; i++) {
+      // the coefficient of u^i is sum_j binom(2n+2, j) (-4)^{i-j}
+      BigInteger expected = BigInteger.ZERO;
+      BigInteger binom = BigInteger.ONE;
+      for (int j = 0; j <= i; j++) {
+        expected = expected.add(binom.multiply(BigInteger.valueOf(-4).pow(i - j)));
+        binom = binom.multiply(BigInteger.valueOf(2 * n + 2 - j))
+                     .divide(BigInteger.valueOf(j + 1));
+      }
+      assertEquals(new BigInt(expected), pont.get(mb.set(0, 4 * i).build()));
+    }
+  }
+  
   /**
    * Test of characteristic numbers of class HP(n)
    */
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package manifold;
+
+import polynomial.*;
+import lib.*;
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class PowerTest {
+  
+  Manifold m;
+  PartitionComputer pc;
+  public PowerTest() {
+    m  = new Power(new CP(2), 3);
+    pc = new PartitionComputer();
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of rDim method, of class Power.
+   */
+  @Test
+  public void testRDim() {
+    System.out.println("rDim");
+    assertEquals(12, m.rDim());
+    assertEquals(6, m.cDim());
+  }
+
+  /**
+   * Test of getCharClasses method, of class Power.
+   */
+  @Test
+  public void testGetCharClasses() {
+    System.out.println("getCharClasses");
+    Manifold product = new Product(Arrays.asList(new CP(2), new CP(2), new CP(2)));
+    assert(m.chernClass().getTerms().equals(product.chernClass().getTerms()));
+    assert(m.pontClass().getTerms().equals(product.pontClass().getTerms()));
+    assert(m.swClass().getTerms().equals(product.swClass().getTerms()));
+  }
+
+  /**
+   * Test of getCharNumbers method, of class Power.
+   */
+  @Test
+  public void testGetCharNumbers() {
+    System.out.println("getCharNumbers");
+    Manifold product = new Product(Arrays.asList(new CP(2), new CP(2), new CP(2)));
+    assertEquals(product.getCharNumbers(pc), m.getCharNumbers(pc));
+    // The Euler characteristic of CP(2)^3 is 3^3.
+    assertEquals(new BigInt(27), m.getCharNumbers(pc).chernNumber(new Partition(new Integer[]{6})));
+    Manifold hp = new Power(new HP(1), 4);
+    Manifold hpProduct = new Product(Arrays.asList(new HP(1), new HP(1), new HP(1), new HP(1)));
+    assertEquals(hpProduct.getCharNumbers(pc), hp.getCharNumbers(pc));
+  }
+
+  /**
+   * Test of toString method, of class Power.
+   */
+  @Test
+  public void testToString() {
+    System.out.println("toString");
+    assertEquals("CP(2) x CP(2) x CP(2)", m.toString());
+  }
+  
+}
@@ -27,6 +27,7 @@ import polynomial.MultiDegree;
 import polynomial.*;
 import lib.*;
 import java.util.*;
+import java.util.concurrent.*;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -267,6 +268,108 @@ public class ProductTest {
     
   }
 
+  /**
+   * Test of getCharNumbers on a product with many factors, 
+   * whose characteristic classes are never expanded.
+   */
+  @Test
+  public void testManyFactors() {
+    System.out.println("manyFactors");
+    // c(CP(1)^k) = (1 + 2x_1)...(1 + 2x_k) where x_i^2 = 0, so 
+    // c_1^k = 2^k k! x_1...x_k and c_k = 2^k x_1...x_k.
+    int k = 16;
+    Manifold m5 = new Product(Collections.nCopies(k, new CP(1)));
+    Manifold.CharNumbers cn = m5.getCharNumbers(pc);
+    Integer[] ones = new Integer[k];
+    Arrays.fill(ones, 1);
+    java.math.BigInteger factorial = java.math.BigInteger.ONE;
+    for (int i = 2; i <= k; i++) 
+      factorial = factorial.multiply(java.math.BigInteger.valueOf(i));
+    assertEquals(new BigInt(factorial.shiftLeft(k)), cn.chernNumber(new Partition(ones)));
+    assertEquals(new BigInt(1 << k), cn.chernNumber(new Partition(new Integer[]{k})));
+    // CP(1) has p = 1, so every Pontryagin number vanishes.
+    for (BigInt a : cn.getPontryaginNumbers().values()) 
+      assert(a.isZero());
+  }
+
+  /**
+   * Test of getCharNumbers method with an Executor, of class Manifold.
+   */
+  @Test
+  public void testGetCharNumbersParallel() throws Exception {
+    System.out.println("getCharNumbersParallel");
+    Manifold sequential = new Product(Arrays.asList(new CP(1), new CP(2), new CP(3), new CP(1)));
+    Manifold parallel   = new Product(Arrays.asList(new CP(1), new CP(2), new CP(3), new CP(1)));
+    Manifold.CharNumbers expected = sequential.getCharNumbers(pc);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      // Several threads ask for the same manifold's numbers at once.
+      List<Future<Manifold.CharNumbers>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> parallel.getCharNumbers(pc, ForkJoinPool.commonPool())));
+      }
+      for (Future<Manifold.CharNumbers> result : results) {
+        assertEquals(expected, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(expected, parallel.getCharNumbers(pc));
+  }
+
+  /**
+   * Test of getCharNumbers method called by tasks on its own Executor,
+   * of class Manifold.  With more callers than threads, every thread
+   * waits on a computation whose pieces are queued behind it.
+   */
+  @Test(timeout = 60000)
+  public void testGetCharNumbersInsidePool() throws Exception {
+    System.out.println("getCharNumbersInsidePool");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<Manifold.CharNumbers>> results = new ArrayList<>();
+      for (int n = 3; n < 7; n++) {
+        int k = n;
+        results.add(executor.submit(() -> new CP(k).getCharNumbers(pc, executor)));
+      }
+      for (int n = 3; n < 7; n++) {
+        assertEquals(new CP(n).getCharNumbers(pc), results.get(n - 3).get());
+      }
+      Manifold m = new Product(Arrays.asList(new CP(2), new CP(3)));
+      assertEquals(m.getCharNumbers(pc),
+                   executor.submit(() -> new Product(Arrays.asList(new CP(2), new CP(3)))
+                                         .getCharNumbers(pc, executor)).get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test of modularCharNumbers method, of class Manifold.CharNumbers.
+   */
+  @Test
+  public void testModularCharNumbers() {
+    System.out.println("modularCharNumbers");
+    // The Chern numbers of CP(6) x CP(6) x CP(6) overflow a long, 
+    // so they take several primes.
+    Manifold m4 = new Product(Arrays.asList(new CP(6), new CP(6), new CP(6)));
+    Manifold.CharNumbers expected = m4.getCharNumbers(pc);
+    Map<Partition, BigInt> chern = Manifold.CharNumbers.modularCharNumbers(
+            m4.chernClass(), 
+            m4.mu(), 
+            pc, 
+            2, 
+            ForkJoinPool.commonPool()).join();
+    assertEquals(expected.getChernNumbers(), chern);
+    Map<Partition, BigInt> pont = Manifold.CharNumbers.modularCharNumbers(
+            m4.pontClass(), 
+            m4.mu(), 
+            pc, 
+            4, 
+            null).join();
+    assertEquals(expected.getPontryaginNumbers(), pont);
+  }
+
   /**
    * Test of toString method, of class Product.
    */
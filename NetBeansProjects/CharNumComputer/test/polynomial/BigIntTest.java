@@ -135,6 +135,8 @@ public class BigIntTest {
   public void testIsZero() {
     System.out.println("isZero");
     assert(BigInt.ring.zero().isZero());
+    assert(new BigInt(new BigInteger("0")).isZero());
+    assert(new BigInt(7).plus(new BigInt(-7)).isZero());
   }
 
   /**
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class BitTermsTest {
+  
+  MultiDegree.Builder mb = new MultiDegree.Builder();
+  Random random = new Random(14);
+  List<DenseTerms.Layout> layouts = new ArrayList<>();
+  
+  public BitTermsTest() {
+    // Z/2[u,v]/<u^3, v^2> where u has degree 2 and v has degree 4
+    layouts.add(new DenseTerms.Layout(mb.setVars(2).set(0, 2).set(1, 4).build(), 
+                                      mb.set(0, 4).set(1, 4).build()));
+    // blocks of 42 bits, which straddle words
+    layouts.add(new DenseTerms.Layout(mb.setVars(3).set(0, 4).set(1, 4).set(2, 2).build(), 
+                                      mb.set(0, 24).set(1, 20).set(2, 16).build()));
+    // rows of more than 64 bits
+    layouts.add(new DenseTerms.Layout(mb.setVars(2).set(0, 1).set(1, 2).build(), 
+                                      mb.set(0, 100).set(1, 4).build()));
+    layouts.add(new DenseTerms.Layout(mb.setVars(0).build(), mb.build()));
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+  
+  /**
+   * Fills bits and hash with the same random terms of layout.
+   * @param layout
+   * @param bits
+   * @param hash 
+   */
+  private void fill(DenseTerms.Layout layout, Terms<IntMod2> bits, Terms<IntMod2> hash) {
+    IntMod2 one = IntMod2.ring.one();
+    for (int i = 0; i < layout.size(); i++) {
+      if (random.nextInt(3) == 0) {
+        bits.put(layout.degree(i), one);
+        hash.put(layout.degree(i), one);
+      }
+    }
+  }
+  /**
+   * Returns a random MultiDegree at most layout's truncation.
+   * @param layout
+   * @return 
+   */
+  private MultiDegree below(DenseTerms.Layout layout) {
+    MultiDegree trunc = layout.truncation();
+    mb.setVars(trunc.vars());
+    for (int i = 0; i < trunc.vars(); i++) 
+      mb.set(i, random.nextInt(trunc.get(i) + 1));
+    return mb.build();
+  }
+
+  /**
+   * Test of put, accumulate and size methods, of class BitTerms.
+   */
+  @Test
+  public void testAccumulate() {
+    System.out.println("accumulate");
+    BitTerms t = new BitTerms(new BitTerms.Blocks(layouts.get(0)));
+    MultiDegree u = mb.setVars(2).set(0, 2).set(1, 0).build();
+    assert(t.isEmpty());
+    t.put(u, IntMod2.ring.one());
+    assertEquals(1, t.size());
+    assertEquals(IntMod2.ring.one(), t.get(u));
+    t.accumulate(u, IntMod2.ring.zero());
+    assertEquals(1, t.size());
+    t.accumulate(u, IntMod2.ring.one());
+    assert(t.isEmpty());
+    assertNull(t.get(u));
+    t.put(mb.set(0, 6).build(), IntMod2.ring.one());                         // u^3 is outside the box
+    assert(t.isEmpty());
+  }
+
+  /**
+   * Test of addAll method, of class BitTerms.
+   */
+  @Test
+  public void testAddAll() {
+    System.out.println("addAll");
+    for (DenseTerms.Layout layout : layouts) {
+      BitTerms.Blocks blocks = new BitTerms.Blocks(layout);
+      BitTerms p = new BitTerms(blocks);
+      BitTerms q = new BitTerms(blocks);
+      HashTerms<IntMod2> hp = new HashTerms<>();
+      HashTerms<IntMod2> hq = new HashTerms<>();
+      fill(layout, p, hp);
+      fill(layout, q, hq);
+      p.addAll(q);
+      hq.forEach(hp::accumulate);
+      assertEquals(hp, p);
+    }
+  }
+
+  /**
+   * Test of multiplyAdd method, of class BitTerms,
+   * compared against multiplying HashTerms.
+   */
+  @Test
+  public void testMultiplyAdd() {
+    System.out.println("multiplyAdd");
+    for (DenseTerms.Layout layout : layouts) {
+      BitTerms.Blocks blocks = new BitTerms.Blocks(layout);
+      for (int trial = 0; trial < 20; trial++) {
+        BitTerms p = new BitTerms(blocks);
+        BitTerms q = new BitTerms(blocks);
+        HashTerms<IntMod2> hp = new HashTerms<>();
+        HashTerms<IntMod2> hq = new HashTerms<>();
+        fill(layout, p, hp);
+        fill(layout, q, hq);
+        MultiDegree lower = (trial == 0) ? null : below(layout);
+        MultiDegree upper = (trial == 0) ? layout.truncation() : below(layout);
+        BitTerms prod = new BitTerms(blocks);
+        HashTerms<IntMod2> expected = new HashTerms<>();
+        fill(layout, prod, expected);                                        // products are added to what is there
+        prod.multiplyAdd(p, q, lower, upper);
+        expected.multiplyAdd(hp, hq, lower, upper);
+        assertEquals(expected, prod);
+      }
+    }
+  }
+
+  /**
+   * Test of pair method, of class BitTerms.
+   */
+  @Test
+  public void testPair() {
+    System.out.println("pair");
+    for (DenseTerms.Layout layout : layouts) {
+      BitTerms.Blocks blocks = new BitTerms.Blocks(layout);
+      BitTerms p = new BitTerms(blocks);
+      BitTerms q = new BitTerms(blocks);
+      HashTerms<IntMod2> hp = new HashTerms<>();
+      HashTerms<IntMod2> hq = new HashTerms<>();
+      fill(layout, p, hp);
+      fill(layout, q, hq);
+      for (int i = 0; i < layout.size(); i++) {
+        MultiDegree target = layout.degree(i);
+        assertEquals(hp.pair(hq, target, IntMod2.ring.zero()), 
+                     p.pair(q, target, IntMod2.ring.zero()));
+      }
+    }
+  }
+
+  /**
+   * Test that dense PolyRings over IntMod2 store elements as BitTerms.
+   */
+  @Test
+  public void testPolyRing() {
+    System.out.println("polyRing");
+    MultiDegree variables  = mb.setVars(2).set(0, 2).set(1, 4).build();
+    MultiDegree truncation = mb.set(0, 4).set(1, 4).build();
+    PolyRing<IntMod2> bits = new PolyRing<>(IntMod2.ring, variables, truncation, PolyRing.Storage.AUTO);
+    PolyRing<IntMod2> hash = new PolyRing<>(IntMod2.ring, variables, truncation, PolyRing.Storage.HASH);
+    assert(bits.zero().terms instanceof BitTerms);
+    MultiDegree u = mb.set(0, 2).set(1, 0).build();
+    MultiDegree v = mb.set(0, 0).set(1, 4).build();
+    PolyRing<IntMod2>.Element p = bits.add(bits.one(), bits.makeElement(u, IntMod2.ring.one()));
+    p = bits.add(p, bits.makeElement(v, IntMod2.ring.one()));
+    PolyRing<IntMod2>.Element square = bits.multiply(p, p);                  // (1 + u + v)^2 = 1 + u^2
+    PolyRing<IntMod2>.Element q = hash.makeElement(p.getTerms());
+    assertEquals(hash.multiply(q, q).getTerms(), square.getTerms());
+    assertEquals(2, square.getTerms().size());
+  }
+  
+}
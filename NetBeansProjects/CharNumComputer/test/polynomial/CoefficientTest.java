@@ -211,5 +211,32 @@ public class CoefficientTest {
     
   }
 
+  /**
+   * Test of the cached small coefficients of Int, LongInt, BigInt and IntMod2.
+   */
+  @Test
+  public void testCachedValues() {
+    System.out.println("cachedValues");
+    assertSame(Int.valueOf(5), Int.valueOf(5));
+    assertSame(LongInt.valueOf(5), LongInt.valueOf(5));
+    assertSame(BigInt.valueOf(5), BigInt.valueOf(5));
+    assertSame(IntMod2.valueOf(5), IntMod2.valueOf(1));
+    // arithmetic with small results returns the cached instances
+    assertSame(Int.valueOf(5), Int.valueOf(2).plus(Int.valueOf(3)));
+    assertSame(LongInt.valueOf(6), LongInt.valueOf(2).times(LongInt.valueOf(3)));
+    assertSame(BigInt.valueOf(-1), BigInt.ring.one().negate());
+    assertSame(IntMod2.ring.zero(), IntMod2.ring.one().plus(IntMod2.ring.one()));
+    // a computed zero is zero, and equal to a constructed one
+    BigInt big = BigInt.valueOf(BigInteger.ONE.shiftLeft(100));
+    assert(big.minus(big).isZero());
+    assertEquals(new BigInt(0), big.minus(big));
+    assert(Int.valueOf(7).minus(Int.valueOf(7)).isZero());
+    assert(LongInt.valueOf(-3).plus(LongInt.valueOf(3)).isZero());
+    assertEquals(new LongInt(0), LongInt.ring.zero());
+    // values outside the cache are still equal by value
+    assertEquals(BigInt.valueOf(1000), BigInt.valueOf(1000));
+    assertEquals(Int.valueOf(1000), new Int(1000));
+  }
+
 
 }
\ No newline at end of file
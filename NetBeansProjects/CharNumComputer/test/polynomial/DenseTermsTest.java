@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class DenseTermsTest {
+  
+  MultiDegree.Builder mb = new MultiDegree.Builder();
+  DenseTerms.Layout layout;
+  
+  public DenseTermsTest() {
+    // Z[u,v]/<u^3, v^2> where u has degree 2 and v has degree 4
+    MultiDegree variables  = mb.setVars(2).set(0, 2).set(1, 4).build();
+    MultiDegree truncation = mb.set(0, 4).set(1, 4).build();
+    layout = new DenseTerms.Layout(variables, truncation);
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of index and degree methods, of class DenseTerms.Layout.
+   */
+  @Test
+  public void testIndex() {
+    System.out.println("index");
+    assertEquals(6, layout.size());
+    MultiDegree d = mb.setVars(2).set(0, 2).set(1, 4).build();
+    assertEquals(4, layout.index(d));
+    assert(layout.degree(4).equals(d));
+    assertEquals(-1, layout.index(mb.set(0, 6).build()));
+    assertEquals(-1, layout.index(mb.set(0, 1).build()));
+  }
+
+  /**
+   * Test of fitsTogether method, of class DenseTerms.Layout.
+   */
+  @Test
+  public void testFitsTogether() {
+    System.out.println("fitsTogether");
+    assert(layout.fitsTogether(1, 1));                                       // u * u
+    assert(!layout.fitsTogether(2, 1));                                      // u^2 * u
+    assert(!layout.fitsTogether(3, 3));                                      // v * v
+    assert(layout.fitsTogether(1, 4));                                       // u * uv
+  }
+
+  /**
+   * Test of convolve method, of class DenseTerms.
+   */
+  @Test
+  public void testConvolve() {
+    System.out.println("convolve");
+    DenseTerms<Int> p = new DenseTerms<>(layout);
+    MultiDegree one = mb.setVars(2).zero().build();
+    MultiDegree u   = mb.set(0, 2).build();
+    p.put(one, new Int(1));
+    p.put(u, new Int(1));
+    DenseTerms<Int> square = new DenseTerms<>(layout);
+    square.convolve(p, p);                                                   // (1 + u)^2 = 1 + 2u + u^2
+    assertEquals(3, square.size());
+    assertEquals(new Int(2), square.get(u));
+    DenseTerms<Int> cube = new DenseTerms<>(layout);
+    cube.convolve(square, p);                                                // u^3 is truncated
+    assertEquals(3, cube.size());
+    assertEquals(new Int(3), cube.get(mb.set(0, 4).build()));
+    cube.accumulate(one, new Int(-1));
+    assertEquals(2, cube.size());
+  }
+
+  /**
+   * Test of kroneckerMultiply method, of class DenseTerms.
+   */
+  @Test
+  public void testKroneckerMultiply() {
+    System.out.println("kroneckerMultiply");
+    // Z[u,v]/<u^40, v^30> with u of degree 2 and v of degree 4, 
+    // which is long enough for Karatsuba's method to recurse.
+    MultiDegree variables  = mb.setVars(2).set(0, 2).set(1, 4).build();
+    MultiDegree truncation = mb.set(0, 78).set(1, 116).build();
+    DenseTerms.Layout big = new DenseTerms.Layout(variables, truncation);
+    DenseTerms<BigInt> p = new DenseTerms<>(big);
+    DenseTerms<BigInt> q = new DenseTerms<>(big);
+    for (int i = 0; i < big.size(); i++) {
+      p.put(big.degree(i), new BigInt((i % 7) - 7));
+      q.put(big.degree(i), new BigInt((i % 5) + 1));
+    }
+    DenseTerms<BigInt> expected = new DenseTerms<>(big);
+    expected.convolve(p, q);
+    DenseTerms<BigInt> prod = new DenseTerms<>(big);
+    prod.kroneckerMultiply(p, q);
+    assertEquals(expected, prod);
+    assert(big.prefersKronecker(20000, 20000));
+    assert(!layout.prefersKronecker(6, 6));
+  }
+  
+}
@@ -168,6 +168,8 @@ public class IntMod2Test {
     assert(IntMod2.ring.one().isOne());
     IntMod2 one = new IntMod2(1);
     assert(one.isOne());
+    assert(new IntMod2(-3).isOne());
+    assert(new IntMod2(new BigInt(-3)).isOne());
   }
 
   /**
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.math.BigInteger;
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class IntModPTest {
+  
+  IntModP field;
+  IntModP small;
+  
+  public IntModPTest() {
+    field = IntModP.ring(IntModP.prime(0));
+    small = IntModP.ring(7);
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of ring method, of class IntModP.
+   */
+  @Test
+  public void testRing() {
+    System.out.println("ring");
+    assert(IntModP.ring(7) == small);                                        // one instance per prime
+    assertEquals(IntModP.prime(0), Integer.MAX_VALUE);
+    assert(IntModP.prime(1) < IntModP.prime(0));
+    try {
+      IntModP.ring(9);
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  /**
+   * Test of valueOf method, of class IntModP.
+   */
+  @Test
+  public void testValueOf() {
+    System.out.println("valueOf");
+    assertEquals(small.valueOf(-1).value(), 6);
+    assertEquals(small.valueOf(BigInteger.valueOf(-15)).value(), 6);
+    assert(small.valueOf(14).isZero());
+    assert(small.valueOf(8).isOne());
+    assert(!small.valueOf(3).equals(IntModP.ring(5).valueOf(3)));
+  }
+
+  /**
+   * Test of plus method, of class IntModP.
+   */
+  @Test
+  public void testPlus() {
+    System.out.println("plus");
+    assert(small.valueOf(4).plus(small.valueOf(5)).equals(small.valueOf(2)));
+    IntModP big = field.valueOf(Integer.MAX_VALUE - 1);
+    assert(big.plus(big).equals(field.valueOf(-2)));
+  }
+
+  /**
+   * Test of times method, of class IntModP.
+   */
+  @Test
+  public void testTimes() {
+    System.out.println("times");
+    assert(small.valueOf(4).times(small.valueOf(5)).equals(small.valueOf(6)));
+    // Agrees with BigInteger on a chain of products.
+    BigInteger p = BigInteger.valueOf(field.modulus());
+    IntModP    a = field.valueOf(3);
+    BigInteger b = BigInteger.valueOf(3);
+    for (int i = 0; i < 100; i++) {
+      a = a.times(field.valueOf(-123456789)).plus(field.valueOf(i));
+      b = b.multiply(BigInteger.valueOf(-123456789)).add(BigInteger.valueOf(i));
+    }
+    assertEquals(a.value(), b.mod(p).longValue());
+  }
+
+  /**
+   * Test of negative method, of class IntModP.
+   */
+  @Test
+  public void testNegative() {
+    System.out.println("negative");
+    assert(small.valueOf(3).negate().equals(small.valueOf(4)));
+    assert(small.zero().negate().isZero());
+    assert(field.valueOf(5).minus(field.valueOf(5)).isZero());
+  }
+
+  /**
+   * Test of inverse method, of class IntModP.
+   */
+  @Test
+  public void testInverse() {
+    System.out.println("inverse");
+    for (int i = 1; i < 7; i++) 
+      assert(small.valueOf(i).times(small.valueOf(i).inverse()).isOne());
+    assert(field.valueOf(2).inverse().equals(field.valueOf((field.modulus() + 1) / 2)));
+  }
+
+  /**
+   * Test of crt method, of class IntModP.
+   */
+  @Test
+  public void testCrt() {
+    System.out.println("crt");
+    BigInteger n = BigInteger.valueOf(-3).pow(50);
+    for (BigInteger x : Arrays.asList(n, n.negate(), BigInteger.ZERO)) {
+      List<IntModP> residues = new ArrayList<>();
+      for (int i = 0; i < 3; i++) 
+        residues.add(IntModP.ring(IntModP.prime(i)).valueOf(x));
+      assertEquals(IntModP.crt(residues), x);
+    }
+  }
+  
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.math.BigInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class LongIntTest {
+  
+  LongInt max;
+  LongInt min;
+  
+  public LongIntTest() {
+    max = new LongInt(Long.MAX_VALUE);
+    min = new LongInt(Long.MIN_VALUE);
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of value method, of class LongInt.
+   */
+  @Test
+  public void testValue() {
+    System.out.println("value");
+    assert(new LongInt(1).value().equals(BigInteger.ONE));
+    assert(max.value().equals(BigInteger.valueOf(Long.MAX_VALUE)));
+  }
+
+  /**
+   * Test of equals method, of class LongInt.
+   */
+  @Test
+  public void testEquals() {
+    System.out.println("equals");
+    assert(new LongInt(6).equals(new LongInt(BigInteger.valueOf(6))));
+    assert(new LongInt(6).isLong());
+    assert(new LongInt(BigInteger.valueOf(6)).isLong());                     // a BigInteger which fits is held as a long
+    assert(!new LongInt(6).equals(new BigInt(6)));
+  }
+
+  /**
+   * Test of plus method, of class LongInt.
+   */
+  @Test
+  public void testPlus() {
+    System.out.println("plus");
+    assert(new LongInt(4).plus(new LongInt(12)).equals(new LongInt(16)));
+    LongInt sum = max.plus(max);
+    assert(!sum.isLong());
+    assert(sum.value().equals(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1)));
+    assert(sum.plus(min).plus(min).plus(new LongInt(2)).isZero());
+    assert(sum.plus(min).plus(min).plus(new LongInt(2)).isLong());          // back to a long
+  }
+
+  /**
+   * Test of times method, of class LongInt.
+   */
+  @Test
+  public void testTimes() {
+    System.out.println("times");
+    assert(new LongInt(4).times(new LongInt(-12)).equals(new LongInt(-48)));
+    LongInt big = new LongInt(1L << 40);
+    assert(big.times(new LongInt(1L << 20)).equals(new LongInt(1L << 60)));
+    LongInt product = big.times(big);
+    assert(!product.isLong());
+    assert(product.value().equals(BigInteger.ONE.shiftLeft(80)));
+    assert(min.times(new LongInt(-1)).value().equals(BigInteger.ONE.shiftLeft(63)));
+    // Agrees with BigInt on a chain of products.
+    LongInt a = new LongInt(3);
+    BigInt  b = new BigInt(3);
+    for (int i = 0; i < 100; i++) {
+      a = a.times(new LongInt(-7)).plus(new LongInt(i));
+      b = b.times(new BigInt(-7)).plus(new BigInt(i));
+    }
+    assert(a.value().equals(b.value()));
+    assert(a.toBigInt().equals(b));
+  }
+
+  /**
+   * Test of isZero method, of class LongInt.
+   */
+  @Test
+  public void testIsZero() {
+    System.out.println("isZero");
+    assert(LongInt.ring.zero().isZero());
+    assert(LongInt.ring.intToCoefficient(0).isZero());
+    assert(!max.isZero());
+  }
+
+  /**
+   * Test of isOne method, of class LongInt.
+   */
+  @Test
+  public void testIsOne() {
+    System.out.println("isOne");
+    assert(LongInt.ring.one().isOne());
+    assert(new LongInt(BigInteger.ONE).isOne());
+  }
+
+  /**
+   * Test of negative method, of class LongInt.
+   */
+  @Test
+  public void testNegative() {
+    System.out.println("negative");
+    assert(max.minus(max).isZero());
+    assert(min.negate().value().equals(BigInteger.ONE.shiftLeft(63)));
+    assert(min.negate().negate().equals(min));
+  }
+  
+}
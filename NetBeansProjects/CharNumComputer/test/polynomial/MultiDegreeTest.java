@@ -136,6 +136,56 @@ public class MultiDegreeTest {
     assert(mb.set(sum).build().equals(MultiDegree.add(test1, test3)));
   }
 
+  /**
+   * Test of subtract method, of class MultiDegree.
+   */
+  @Test
+  public void testSubtract() {
+    System.out.println("subtract");
+    MultiDegree test3 = mb.setVars(3).setAll(2).build();
+    MultiDegree diff = MultiDegree.subtract(test1, test3);
+    assert(diff.equals(mb.set(0, -1).set(1, 1).set(2, 0).build()));
+    assert(MultiDegree.add(diff, test3).equals(test1));
+  }
+
+  /**
+   * Test of add method, of class MultiDegree, when a sum no longer fits 
+   * in the packed representation.
+   */
+  @Test
+  public void testAddOutgrowsPacking() {
+    System.out.println("add outgrows packing");
+    MultiDegree big = mb.setVars(8).setAll(100).build();
+    assert(big.isPacked());
+    MultiDegree sum = MultiDegree.add(big, big);
+    assert(!sum.isPacked());
+    assertEquals(200, sum.get(7));
+    assertEquals(1600, sum.total());
+    assert(sum.equals(mb.setAll(200).build()));
+    assert(!sum.exceeds(mb.setAll(200).build()));
+    assert(sum.exceeds(big));
+  }
+
+  /**
+   * Test of packing with more variables than fit in a single long,
+   * and with more than can be packed at all.
+   */
+  @Test
+  public void testManyVariables() {
+    System.out.println("many variables");
+    MultiDegree d = mb.setVars(12).zero().set(0, 3).set(11, 5).build();
+    assert(d.isPacked());
+    assertEquals(3, d.get(0));
+    assertEquals(5, d.get(11));
+    MultiDegree trunc = mb.setAll(4).build();
+    assert(d.exceeds(trunc));
+    assert(!MultiDegree.add(d, d).equals(d));
+    MultiDegree e = mb.setVars(MultiDegree.MAX_PACKED_VARS + 1).zero().set(0, 1).build();
+    assert(!e.isPacked());
+    assert(MultiDegree.pad(d, 3, 2).equals(
+            mb.setVars(17).zero().set(3, 3).set(14, 5).build()));
+  }
+
   /**
    * Test of toString method, of class MultiDegree.
    */
@@ -270,5 +320,29 @@ public class MultiDegreeTest {
     assert(mb.set(0,4).set(1,4).build().isBounded());
     assert(!mb.set(0, Integer.MAX_VALUE).build().isBounded());
   }
+
+  /**
+   * Test of compare method, of class MultiDegree.
+   */
+  @Test
+  public void testCompare() {
+    System.out.println("compare");
+    mb.setVars(2);
+    MultiDegree a = mb.set(0,3).set(1,1).build();
+    MultiDegree b = mb.set(0,1).set(1,3).build();
+    MultiDegree c = mb.set(0,1).set(1,4).build();
+    MultiDegree big = mb.set(0,1).set(1,Integer.MAX_VALUE - 2).build();   // not packed
+    assert(MultiDegree.compare(a, b) < 0);
+    assert(MultiDegree.compare(b, c) < 0);
+    assert(MultiDegree.compare(c, a) > 0);
+    assertEquals(0, MultiDegree.compare(a, a.copy()));
+    assert(MultiDegree.compare(c, big) < 0);
+    MultiDegree shift = mb.set(0,5).set(1,2).build();
+    assert(MultiDegree.compare(MultiDegree.add(a, shift), MultiDegree.add(b, shift)) < 0);
+    mb.setVars(12);                                                          // packed into two words
+    MultiDegree d = mb.zero().set(11,1).build();
+    MultiDegree e = mb.zero().set(0,1).build();
+    assert(MultiDegree.compare(e, d) < 0);
+  }
   
 }
@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class PackedTermsTest {
+  
+  MultiDegree.Builder mb = new MultiDegree.Builder();
+  PackedTerms.Radix radix;
+  
+  public PackedTermsTest() {
+    // Z[u,v,w]/<u^8, v^8, w^8> where u, v, w have degrees 1, 4 and 3
+    MultiDegree variables  = mb.setVars(3).set(0, 1).set(1, 4).set(2, 3).build();
+    MultiDegree truncation = mb.set(0, 7).set(1, 28).set(2, 21).build();
+    radix = new PackedTerms.Radix(variables, truncation);
+  }
+
+  /**
+   * Test of low, high and isSupported methods, of class PackedTerms.Radix.
+   */
+  @Test
+  public void testCode() {
+    System.out.println("low");
+    mb.setVars(3);
+    assertEquals(0, radix.low(mb.zero().build()));
+    assertEquals(1 + 2 * 8 + 3 * 64, radix.low(mb.set(0, 1).set(1, 8).set(2, 9).build()));
+    assertEquals(511, radix.low(mb.set(0, 7).set(1, 28).set(2, 21).build()));
+    assertEquals(-1, radix.low(mb.set(0, 8).set(1, 0).set(2, 0).build()));     // above the truncation
+    assertEquals(-1, radix.low(mb.set(0, 0).set(1, 2).build()));               // not a multiple of v's degree
+    assertEquals(-1, radix.low(mb.set(1, 0).set(2, 4).build()));               // not a multiple of w's degree
+    assert(PackedTerms.Radix.isSupported(mb.setAll(1).build(), mb.setAll(1 << 20).build()));
+    assertEquals(0, radix.high(mb.set(0, 7).set(1, 28).set(2, 21).build()));
+    mb.setVars(4);                                                           // needs both words
+    MultiDegree ones = mb.setAll(1).build();
+    MultiDegree wide = mb.setAll(1 << 20).build();
+    assert(PackedTerms.Radix.isSupported(ones, wide));
+    PackedTerms.Radix split = new PackedTerms.Radix(ones, wide);
+    MultiDegree d = mb.set(0, 1).set(1, 2).set(2, 3).set(3, 4).build();
+    assertEquals(1 + 2 * ((1 << 20) + 1) + 3 * (((1L << 20) + 1) * ((1 << 20) + 1)), split.low(d));
+    assertEquals(4, split.high(d));
+    mb.setVars(7);
+    assert(!PackedTerms.Radix.isSupported(mb.setAll(1).build(), mb.setAll(1 << 20).build()));
+    assert(!PackedTerms.Radix.isSupported(mb.setAll(1).build(), mb.maxAll().build()));
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of accumulate method, of class PackedTerms, compared against 
+   * HashTerms through enough growth and removal to shift probe sequences.
+   */
+  @Test
+  public void testAccumulate() {
+    System.out.println("accumulate");
+    PackedTerms<Int> p = new PackedTerms<>(radix);
+    HashTerms<Int>   q = new HashTerms<>();
+    Random random = new Random(5);
+    mb.setVars(3);
+    for (int n = 0; n < 5000; n++) {
+      MultiDegree d = mb.set(0, random.nextInt(8))
+                        .set(1, 4 * random.nextInt(8))
+                        .set(2, 3 * random.nextInt(8)).build();
+      Int a = new Int(random.nextInt(5) - 2);
+      if (a.isZero()) 
+        continue;
+      p.accumulate(d, a);
+      q.accumulate(d, a);
+    }
+    assertEquals(q.size(), p.size());
+    assertEquals(q, p);
+    q.forEach((d, a) -> p.accumulate(d, a.negate()));
+    assert(p.isEmpty());
+  }
+
+  /**
+   * Test of multiplyAdd method, of class PackedTerms, compared against HashTerms.
+   */
+  @Test
+  public void testMultiplyAdd() {
+    System.out.println("multiplyAdd");
+    PackedTerms<Int> p = new PackedTerms<>(radix);
+    HashTerms<Int>   q = new HashTerms<>();
+    mb.setVars(3);
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 4; j++) {
+        MultiDegree d = mb.set(0, i).set(1, 4 * j).set(2, 3 * ((i + j) % 3)).build();
+        p.put(d, new Int(i - 2 * j + 7));
+        q.put(d, new Int(i - 2 * j + 7));
+      }
+    }
+    MultiDegree upper = mb.set(0, 7).set(1, 24).set(2, 21).build();
+    PackedTerms<Int> pp = new PackedTerms<>(radix);
+    HashTerms<Int>   qq = new HashTerms<>();
+    pp.multiplyAdd(p, p, null, upper);
+    qq.multiplyAdd(q, q, null, upper);
+    assertEquals(qq, pp);
+    MultiDegree lower = mb.set(0, 2).set(1, 4).set(2, 0).build();
+    pp.multiplyAdd(pp.copy(), p, lower, upper);
+    qq.multiplyAdd(qq.copy(), q, lower, upper);
+    assertEquals(qq, pp);
+    for (MultiDegree d : qq.toMap().keySet()) 
+      assertEquals(qq.get(d), pp.get(d));
+  }
+
+  /**
+   * Test of MultiDegrees outside the box in a PackedTerms.
+   */
+  @Test
+  public void testOutside() {
+    System.out.println("outside");
+    PackedTerms<Int> p = new PackedTerms<>(radix);
+    MultiDegree small = mb.setVars(3).set(0, 1).build();
+    MultiDegree large = mb.set(0, 1 << 20).build();
+    MultiDegree minus = MultiDegree.subtract(mb.zero().build(), small);
+    p.put(small, new Int(1));
+    p.put(large, new Int(2));
+    p.accumulate(minus, new Int(3));
+    assertEquals(3, p.size());
+    PackedTerms<Int> q = p.copy();
+    p.accumulate(large, new Int(-2));
+    assertEquals(2, p.size());
+    assertEquals(new Int(2), q.get(large));
+    assertEquals(new Int(3), q.get(minus));
+    p.clear();
+    assert(p.isEmpty());
+    assertEquals(3, q.size());
+  }
+  
+}
@@ -23,6 +23,8 @@
  */
 package polynomial;
 
+import java.util.*;
+import java.util.stream.IntStream;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -86,6 +88,12 @@ public class PolyRingTest {
     PolyRing.Element one2 = twoVars.makeElement(mb.zero().setVars(2).build(),
                                                 new Int(1));
     assert(one.equals(one2));
+    // one() doesn't touch the ring's builder, so threads may share the ring
+    MultiDegree before = truncated.mb.build();
+    PolyRing<Int>.Element expected = truncated.one();
+    assert(IntStream.range(0, 10000).parallel()
+            .allMatch(i -> truncated.one().equals(expected)));
+    assertEquals(before, truncated.mb.build());
   }
 
   /**
@@ -184,6 +192,23 @@ public class PolyRingTest {
             .equals(highDegrees.one()));
   }
 
+  /**
+   * Test of makeElement method, of class PolyRing.
+   */
+  @Test
+  public void testMakeElement_Map() {
+    System.out.println("makeElement");
+    Map<MultiDegree, Int> terms = new HashMap<>();
+    terms.put(mb.setVars(2).zero().build(), new Int(3));
+    terms.put(mb.set(0, 1).build(), new Int(0));
+    terms.put(mb.set(0, 2).set(1, 1).build(), new Int(-2));
+    PolyRing<Int>.Element p = twoVars.add(
+        twoVars.makeElement(mb.zero().build(), new Int(3)),
+        twoVars.makeElement(mb.set(0, 2).set(1, 1).build(), new Int(-2)));
+    assert(twoVars.makeElement(terms).equals(p));
+    assertEquals(2, twoVars.makeElement(terms).getTerms().size());
+  }
+
   /**
    * Test of makeElement method, of class PolyRing.
    */
@@ -194,6 +219,28 @@ public class PolyRingTest {
             mb.setVars(2).set(0,2).set(0,4).build(), 
             new Int(7));
     assert(p.equals(twoVars.makeElement(p)));
+    PolyRing<Int>.Element q = twoVars.makeElement(p);
+    PolyRing<Int>.Element r = twoVars.makeElement(q);
+    PolyRing<Int>.Element one = twoVars.one();
+    twoVars.addInto(q, one);
+    assert(r.equals(p));
+    assert(q.equals(twoVars.add(p, one)));
+    twoVars.multiplyInto(p, p, p);
+    assert(r.equals(twoVars.subtract(q, one)));
+    assert(!p.equals(r));
+    // a copy into a ring with other storage takes that ring's terms
+    MultiDegree vars  = mb.setVars(2).set(0,2).set(1,4).build();
+    MultiDegree trunc = mb.set(0,6).set(1,8).build();
+    PolyRing<Int> hash  = new PolyRing<>(Int.ring, vars, trunc, PolyRing.Storage.HASH);
+    PolyRing<Int> dense = new PolyRing<>(Int.ring, vars, trunc, PolyRing.Storage.DENSE);
+    PolyRing<Int>.Element s = hash.add(hash.one(),
+                                       hash.makeElement(mb.set(0,2).set(1,4).build(), new Int(3)));
+    PolyRing<Int>.Element t = dense.makeElement(s);
+    assertEquals(dense, t.domain());
+    assertEquals(s.getTerms(), t.getTerms());
+    dense.multiplyInto(t, t, t);
+    assertEquals(hash.multiply(s, s).getTerms(), t.getTerms());
+    assertEquals(new Int(3), s.get(mb.build()));
   }
  
   /**
@@ -220,6 +267,91 @@ public class PolyRingTest {
     assert(degree2.equals(a));
     PolyRing<Int>.Element degree5 = c.getHomogeneousParts().get(5);
     assert(degree5.equals(b));
+    
+    // The parts are kept until c is altered, and can't be altered themselves.
+    assert(c.getHomogeneousParts() == c.getHomogeneousParts());
+    try {
+      twoVars.addInto(degree5, a);
+      fail();
+    } catch (UnsupportedOperationException e) {
+    }
+    twoVars.addInto(c, minusA);
+    assert(c.getHomogeneousParts().get(2) == null);
+    assert(degree2.equals(a));
+  }
+
+  /**
+   * Test of power and inverse methods, of class PolyRing.
+   */
+  @Test
+  public void testPowerAndInverse() {
+    System.out.println("power and inverse");
+    PolyRing<Int>.Element one = truncated.one();
+    PolyRing<Int>.Element p = one;
+    for (int i = 0; i < 3; i++) 
+      p = truncated.add(p, truncated.makeElement(mb.setVars(3).zero().set(i, i + 1).build(), new Int(i + 1)));
+    PolyRing<Int>.Element cube = truncated.multiply(p, truncated.multiply(p, p));
+    assert(truncated.power(p, 3).equals(cube));
+    assert(truncated.power(p, 0).equals(one));
+    PolyRing<Int>.Element inverse = truncated.inverse(p);
+    assert(truncated.multiply(p, inverse).equals(one));
+    assert(truncated.multiply(truncated.power(p, -3), cube).equals(one));
+    // a polynomial without constant term is nilpotent
+    PolyRing<Int>.Element x = truncated.subtract(p, one);
+    assert(truncated.power(x, 10).isZero());
+    assert(!truncated.power(x, 3).isZero());
+    try {
+      truncated.inverse(x);
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+    try {
+      twoVars.inverse(twoVars.one());
+      fail();
+    } catch (UnsupportedOperationException e) {
+    }
+    // the most negative exponent can't be negated
+    MultiDegree vars  = mb.setVars(2).set(0, 1).set(1, 2).build();
+    MultiDegree trunc = mb.set(0, 5).set(1, 6).build();
+    IntModP c = IntModP.ring(101);
+    PolyRing<IntModP> ring = new PolyRing<>(c, vars, trunc);
+    PolyRing<IntModP>.Element q = ring.add(ring.one(), ring.add(
+            ring.makeElement(mb.set(0, 1).set(1, 0).build(), c.valueOf(3)),
+            ring.makeElement(mb.set(0, 0).set(1, 2).build(), c.valueOf(7))));
+    PolyRing<IntModP>.Element min = ring.power(q, Integer.MIN_VALUE);
+    assert(ring.multiply(ring.multiply(min, ring.power(q, Integer.MAX_VALUE)), q).equals(ring.one()));
+  }
+
+  /**
+   * Test of exp and log methods, of class PolyRing.
+   */
+  @Test
+  public void testExpAndLog() {
+    System.out.println("exp and log");
+    MultiDegree vars  = mb.setVars(2).set(0, 1).set(1, 2).build();
+    MultiDegree trunc = mb.set(0, 5).set(1, 6).build();
+    PolyRing<IntModP> ring = new PolyRing<>(IntModP.ring(101), vars, trunc);
+    IntModP c = IntModP.ring(101);
+    PolyRing<IntModP>.Element x = ring.add(
+            ring.makeElement(mb.set(0, 1).set(1, 0).build(), c.valueOf(3)),
+            ring.makeElement(mb.set(0, 1).set(1, 2).build(), c.valueOf(7)));
+    PolyRing<IntModP>.Element y = ring.makeElement(mb.set(0, 0).set(1, 2).build(), c.valueOf(5));
+    PolyRing<IntModP>.Element ex = ring.exp(x);
+    assert(ring.log(ex).equals(x));
+    assert(ring.exp(ring.add(x, y)).equals(ring.multiply(ex, ring.exp(y))));
+    assert(ring.log(ring.power(ex, 4)).equals(ring.add(ring.add(x, x), ring.add(x, x))));
+    // exp(2u) = 1 + 2u + 2u^2 over Z when u^3 = 0, but exp(u) is not integral
+    PolyRing<Int> ints = new PolyRing<>(Int.ring, mb.setVars(1).set(0, 2).build());
+    PolyRing<Int>.Element u = ints.makeElement(mb.set(0, 1).build(), new Int(1));
+    PolyRing<Int>.Element expected = ints.one();
+    expected = ints.add(expected, ints.makeElement(mb.set(0, 1).build(), new Int(2)));
+    expected = ints.add(expected, ints.makeElement(mb.set(0, 2).build(), new Int(2)));
+    assert(ints.exp(ints.add(u, u)).equals(expected));
+    try {
+      ints.exp(u);
+      fail();
+    } catch (ArithmeticException e) {
+    }
   }
 
   /**
@@ -247,4 +379,106 @@ public class PolyRingTest {
     p = twoVars.add(p, twoVars.makeElement(d, new Int(-5)));
     assert(twoVars.subtract(p, p).isZero());
   }
+
+  /**
+   * Test of DENSE storage, compared against HASH storage.
+   */
+  @Test
+  public void testDenseStorage() {
+    System.out.println("dense storage");
+    MultiDegree vars  = mb.setVars(2).set(0,2).set(1,4).build();
+    MultiDegree trunc = mb.set(0,6).set(1,8).build();
+    PolyRing<Int> hash  = new PolyRing<>(Int.ring, vars, trunc, PolyRing.Storage.HASH);
+    PolyRing<Int> dense = new PolyRing<>(Int.ring, vars, trunc, PolyRing.Storage.AUTO);
+    assertEquals(PolyRing.Storage.DENSE, dense.storage());
+    PolyRing<Int>.Element p = hash.one();
+    PolyRing<Int>.Element q = dense.one();
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 3; j++) {
+        MultiDegree d = mb.set(0, 2 * i).set(1, 4 * j).build();
+        p = hash.add(p, hash.makeElement(d, new Int(i - j + 1)));
+        q = dense.add(q, dense.makeElement(d, new Int(i - j + 1)));
+      }
+    }
+    assertEquals(p.getTerms(), q.getTerms());
+    PolyRing<Int>.Element p3 = hash.multiply(p, hash.multiply(p, p));
+    PolyRing<Int>.Element q3 = dense.multiply(q, dense.multiply(q, q));
+    assertEquals(p3.getTerms(), q3.getTerms());
+    assert(dense.subtract(q3, q3).isZero());
+    // monomials outside the truncation box are 0
+    assert(dense.makeElement(mb.set(0,8).set(1,0).build(), new Int(1)).isZero());
+  }
+
+  /**
+   * Test of every storage, compared against HASH storage:
+   * addition, multiplication, truncation and homogeneous parts.
+   */
+  @Test
+  public void testStorages() {
+    System.out.println("storages");
+    MultiDegree vars  = mb.setVars(2).set(0,2).set(1,4).build();
+    MultiDegree trunc = mb.set(0,6).set(1,8).build();
+    PolyRing<Int> hash = new PolyRing<>(Int.ring, vars, trunc, PolyRing.Storage.HASH);
+    PolyRing<Int>.Element p = hash.one();
+    for (int i = 0; i < 4; i++) 
+      for (int j = 0; j < 3; j++) 
+        p = hash.add(p, hash.makeElement(mb.set(0, 2 * i).set(1, 4 * j).build(), new Int(i - j + 1)));
+    PolyRing<Int>.Element p3 = hash.multiply(p, hash.multiply(p, p));
+    for (PolyRing.Storage storage : PolyRing.Storage.values()) {
+      PolyRing<Int> ring = new PolyRing<>(Int.ring, vars, trunc, storage);
+      PolyRing<Int>.Element q = ring.makeElement(p.getTerms());
+      assertEquals(p.getTerms(), q.getTerms());
+      PolyRing<Int>.Element q3 = ring.multiply(q, ring.multiply(q, q));
+      assertEquals(storage.toString(), p3.getTerms(), q3.getTerms());
+      assertEquals(hash.add(p, p3).getTerms(), ring.add(q, q3).getTerms());
+      assert(ring.subtract(q3, q3).isZero());
+      // products are truncated to the box
+      assert(q3.getTerms().keySet().stream().noneMatch(d -> d.exceeds(trunc)));
+      assert(ring.multiply(ring.makeElement(trunc, new Int(1)), q).equals(
+             ring.makeElement(trunc, q.get(mb.zero().build()))));
+      assertEquals(p3.getHomogeneousParts().keySet(), q3.getHomogeneousParts().keySet());
+      p3.getHomogeneousParts().forEach((total, part) -> 
+              assertEquals(part.getTerms(), q3.getHomogeneousParts().get(total).getTerms()));
+    }
+  }
+
+  /**
+   * Test of multiplyInto method, of class PolyRing.
+   */
+  @Test
+  public void testMultiplyInto() {
+    System.out.println("multiplyInto");
+    MultiDegree u = mb.setVars(3).zero().set(0,1).build();
+    MultiDegree v = mb.zero().set(1,1).build();
+    PolyRing<Int>.Element p = truncated.add(truncated.one(), 
+                                            truncated.makeElement(u, new Int(1)));
+    PolyRing<Int>.Element q = truncated.add(truncated.one(), 
+                                            truncated.makeElement(v, new Int(3)));
+    PolyRing<Int>.Element dst = truncated.makeElement(v, new Int(9));
+    truncated.multiplyInto(dst, p, q);
+    assert(dst.equals(truncated.multiply(p, q)));
+    // dst may alias one of the factors
+    truncated.multiplyInto(p, p, p);
+    assertEquals(new Int(2), p.get(u));
+    truncated.multiplyInto(p, p, p);
+    assertEquals(new Int(6), p.get(mb.zero().set(0,2).build()));
+    assert(p.get(mb.zero().set(0,3).build()).isZero());
+  }
+
+  /**
+   * Test of addInto method, of class PolyRing.
+   */
+  @Test
+  public void testAddInto() {
+    System.out.println("addInto");
+    MultiDegree d = mb.setVars(2).set(0,1).set(1,2).build();
+    PolyRing<Int>.Element p = twoVars.makeElement(d, new Int(3));
+    PolyRing<Int>.Element dst = twoVars.one();
+    twoVars.addInto(dst, p);
+    assert(dst.equals(twoVars.add(twoVars.one(), p)));
+    twoVars.addInto(dst, dst);
+    assertEquals(new Int(6), dst.get(d));
+    twoVars.addInto(dst, twoVars.negative(dst));
+    assert(dst.isZero());
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class ProductEvaluatorTest {
+  
+  MultiDegree.Builder mb = new MultiDegree.Builder();
+  
+  public ProductEvaluatorTest() {
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+  
+  /**
+   * Returns (1 + u + v + w)^k in ring, where u, v, w are the variables.
+   */
+  private PolyRing<Int>.Element power(PolyRing<Int> ring, int k) {
+    PolyRing<Int>.Element sum = ring.one();
+    for (int i = 0; i < 3; i++) {
+      mb.setVars(3).zero().set(i, ring.variables().get(i));
+      sum = ring.add(sum, ring.makeElement(mb.build(), new Int(1)));
+    }
+    PolyRing<Int>.Element p = ring.one();
+    for (int i = 0; i < k; i++) 
+      p = ring.multiply(p, sum);
+    return p;
+  }
+
+  /**
+   * Test of evaluate method, of class ProductEvaluator, 
+   * compared against computing the whole product.
+   */
+  @Test
+  public void testEvaluate() {
+    System.out.println("evaluate");
+    MultiDegree variables  = mb.setVars(3).set(0, 2).set(1, 2).set(2, 4).build();
+    MultiDegree truncation = mb.set(0, 4).set(1, 6).set(2, 8).build();
+    for (PolyRing.Storage storage : PolyRing.Storage.values()) {
+      PolyRing<Int> ring = new PolyRing<>(Int.ring, variables, truncation, storage);
+      List<PolyRing<Int>.Element> factors = Arrays.asList(
+              power(ring, 2), power(ring, 3), power(ring, 1), power(ring, 4));
+      PolyRing<Int>.Element prod = ring.one();
+      for (PolyRing<Int>.Element f : factors) 
+        prod = ring.multiply(prod, f);
+      for (MultiDegree target : prod.getTerms().keySet()) {
+        ProductEvaluator<Int> evaluator = new ProductEvaluator<>(ring, target);
+        assertEquals(prod.get(target), evaluator.evaluate(factors));
+      }
+      ProductEvaluator<Int> top = new ProductEvaluator<>(ring, truncation);
+      assertEquals(prod.get(truncation), top.evaluate(factors));
+      assertEquals(new Int(1), 
+              top.evaluate(Collections.singletonList(ring.makeElement(truncation, new Int(1)))));
+      assertEquals(new Int(0), top.evaluate(new ArrayList<>()));
+      assertEquals(new Int(0), top.evaluate(Arrays.asList(ring.zero(), power(ring, 2))));
+    }
+  }
+  
+  /**
+   * Test of evaluate method, of class ProductEvaluator, 
+   * on a sequence of factor lists sharing prefixes.
+   */
+  @Test
+  public void testEvaluateSharedPrefixes() {
+    System.out.println("evaluate shared prefixes");
+    MultiDegree variables  = mb.setVars(3).set(0, 2).set(1, 2).set(2, 4).build();
+    MultiDegree truncation = mb.set(0, 4).set(1, 6).set(2, 8).build();
+    PolyRing<Int> ring = new PolyRing<>(Int.ring, variables, truncation, PolyRing.Storage.DENSE);
+    List<PolyRing<Int>.Element> powers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) 
+      powers.add(power(ring, i));
+    ProductEvaluator<Int> shared = new ProductEvaluator<>(ring, truncation);
+    int[][] lists = {{1, 1, 1, 2}, {1, 1, 1, 3}, {1, 1, 2, 2}, {1, 1, 2}, 
+                     {1, 1, 2, 2, 1}, {3, 3}, {1, 1, 1, 2}, {2, 0, 3}};
+    for (int[] list : lists) {
+      List<PolyRing<Int>.Element> factors = new ArrayList<>();
+      PolyRing<Int>.Element prod = ring.one();
+      for (int i : list) {
+        factors.add(powers.get(i));
+        prod = ring.multiply(prod, powers.get(i));
+      }
+      assertEquals(prod.get(truncation), shared.evaluate(factors));
+    }
+  }
+  
+}
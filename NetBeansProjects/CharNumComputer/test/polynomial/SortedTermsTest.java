@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 William Gollinger.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package polynomial;
+
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author William Gollinger
+ */
+public class SortedTermsTest {
+  
+  MultiDegree.Builder mb = new MultiDegree.Builder();
+  
+  public SortedTermsTest() {
+  }
+  
+  @Before
+  public void setUp() {
+  }
+  
+  @After
+  public void tearDown() {
+  }
+  
+  /**
+   * Returns the MultiDegrees of t in the order forEach visits them.
+   */
+  private static List<MultiDegree> order(Terms<Int> t) {
+    List<MultiDegree> list = new ArrayList<>();
+    t.forEach((d, a) -> list.add(d));
+    return list;
+  }
+
+  /**
+   * Test of accumulate and forEach methods, of class SortedTerms.
+   */
+  @Test
+  public void testAccumulate() {
+    System.out.println("accumulate");
+    SortedTerms<Int> t = new SortedTerms<>();
+    MultiDegree one = mb.setVars(2).zero().build();
+    MultiDegree u   = mb.set(0, 1).build();
+    MultiDegree v   = mb.zero().set(1, 1).build();
+    MultiDegree uv  = mb.set(0, 1).build();
+    t.accumulate(uv, new Int(1));
+    t.accumulate(v, new Int(2));
+    t.accumulate(one, new Int(3));
+    t.accumulate(u, new Int(4));
+    assertEquals(Arrays.asList(one, u, v, uv), order(t));
+    t.accumulate(v, new Int(-2));
+    assertEquals(3, t.size());
+    assertEquals(null, t.get(v));
+    assertEquals(new Int(4), t.get(u));
+    SortedTerms<Int> s = t.copy();
+    s.put(u, new Int(5));
+    assertEquals(new Int(4), t.get(u));
+  }
+
+  /**
+   * Test of addAll and multiplyAdd methods, of class SortedTerms, 
+   * compared against HashTerms.
+   */
+  @Test
+  public void testMultiplyAdd() {
+    System.out.println("multiplyAdd");
+    SortedTerms<Int> p = new SortedTerms<>();
+    HashTerms<Int>   q = new HashTerms<>();
+    mb.setVars(3);
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 3; j++) {
+        MultiDegree d = mb.set(0, i).set(1, j).set(2, (i * j) % 2).build();
+        p.put(d, new Int(i - j + 1 == 0 ? 5 : i - j + 1));
+        q.put(d, new Int(i - j + 1 == 0 ? 5 : i - j + 1));
+      }
+    }
+    MultiDegree upper = mb.set(0, 5).set(1, 3).set(2, 1).build();
+    SortedTerms<Int> pp = new SortedTerms<>();
+    HashTerms<Int>   qq = new HashTerms<>();
+    pp.multiplyAdd(p, p, null, upper);
+    qq.multiplyAdd(q, q, null, upper);
+    assertEquals(qq, pp);
+    pp.multiplyAdd(p, p, mb.set(0, 2).set(1, 0).set(2, 0).build(), upper);
+    qq.multiplyAdd(q, q, mb.build(), upper);
+    assertEquals(qq, pp);
+    List<MultiDegree> sorted = order(pp);
+    for (int i = 1; i < sorted.size(); i++) 
+      assert(MultiDegree.compare(sorted.get(i - 1), sorted.get(i)) < 0);
+    SortedTerms<Int> neg = new SortedTerms<>();
+    pp.forEach((d, a) -> neg.put(d, a.negate()));
+    pp.addAll(neg);
+    assert(pp.isEmpty());
+  }
+  
+}
@@ -97,6 +97,28 @@ public class TensorTest {
     PolyRing.Element r = fiveVars.tensor(p, q);
     assert(r.equals(fiveVars.one()));
   }
+  /**
+   * Test of tensor method, of class Tensor, with every storage.
+   */
+  @Test
+  public void testTensorStorages() {
+    System.out.println("tensor storages");
+    PolyRing<Int> left  = new PolyRing<>(Int.ring, mb.setVars(2).set(0,4).set(1,5).build());
+    PolyRing<Int> right = new PolyRing<>(Int.ring, mb.setVars(3).set(0,2).set(1,2).set(2,3).build());
+    MultiDegree u = mb.setVars(2).zero().set(0,1).build();
+    MultiDegree v = mb.setVars(3).zero().set(2,1).build();
+    PolyRing<Int>.Element p = left.add(left.one(), left.makeElement(u, new Int(2)));
+    PolyRing<Int>.Element q = right.add(right.one(), right.makeElement(v, new Int(3)));
+    Tensor<Int> hash = new Tensor<>(Int.ring, Arrays.asList(left, right));
+    PolyRing<Int>.Element expected = hash.tensor(p, q);
+    for (PolyRing.Storage storage : PolyRing.Storage.values()) {
+      Tensor<Int> ring = new Tensor<>(Int.ring, Arrays.asList(left, right), storage);
+      PolyRing<Int>.Element r = ring.tensor(p, q);
+      assert(r.getTerms().equals(expected.getTerms()));
+      assert(ring.multiply(r, r).getTerms().equals(hash.multiply(expected, expected).getTerms()));
+      assert(r.getHomogeneousParts().keySet().equals(expected.getHomogeneousParts().keySet()));
+    }
+  }
   /**
    * Test of tensor method with wrong domains
    */